@@ -0,0 +1,54 @@
+package com.beu.result.AcademicAnalytics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Thread pools for background work.
+ * <p>
+ * {@code taskExecutor} backs {@code @Async} (discovery, archival); ingestion jobs run on
+ * their own {@code ingestionJobExecutor}, sized to the scheduler's concurrency cap, so a
+ * long ingestion queue can never starve the other modules.
+ * </p>
+ */
+@Configuration
+public class AsyncExecutionConfig implements AsyncConfigurer {
+
+    private final int asyncPoolSize;
+
+    public AsyncExecutionConfig(@Value("${async.pool-size:4}") int asyncPoolSize) {
+        this.asyncPoolSize = Math.max(1, asyncPoolSize);
+    }
+
+    @Bean(name = "taskExecutor")
+    public ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncPoolSize);
+        executor.setMaxPoolSize(asyncPoolSize);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("async-");
+        return executor;
+    }
+
+    @Bean(name = "ingestionJobExecutor")
+    public ThreadPoolTaskExecutor ingestionJobExecutor(@Value("${ingestion.scheduler.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, maxConcurrentJobs));
+        executor.setMaxPoolSize(Math.max(1, maxConcurrentJobs));
+        // Admission is capped by IngestionJobScheduler; the queue only bridges the hand-over
+        // while a finishing job's thread returns to the pool
+        executor.setThreadNamePrefix("ingest-job-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return taskExecutor();
+    }
+}
@@ -0,0 +1,124 @@
+package com.beu.result.AcademicAnalytics.config;
+
+import com.beu.result.AcademicAnalytics.service.CohortKpiService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * One-off conversion of {@code student_grades} from text SGPA/CGPA columns ("NA" sentinels)
+ * to nullable REAL columns.
+ * <p>
+ * {@code ddl-auto=update} never changes the type of an existing column, and SQLite cannot alter
+ * one in place, so the table is rebuilt the way SQLite documents it: with foreign key enforcement
+ * off, create the new table (keeping its foreign key to {@code student_informations}), copy the
+ * rows across converting each value, drop the old table and rename the new one into its place.
+ * {@code student_backlogs} refers to the table by name, so it points at the rebuilt table once
+ * the rename lands; {@code PRAGMA foreign_key_check} must come back clean before the rebuild
+ * commits. Values that are not plain numbers ("NA", "-", "1.2.3", blanks) become NULL, and the
+ * number of non-blank values dropped that way is logged. Runs
+ * after Hibernate's schema update (it depends on the {@link EntityManagerFactory}) and is a
+ * no-op once the columns are numeric. The aggregate rebuild groups by the registration segment
+ * columns, so those are backfilled first.
+ * </p>
+ */
+@Component
+@DependsOn("registrationSegmentsMigration")
+public class GradeSchemaMigration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GradeSchemaMigration.class);
+
+    private static final List<String> GRADE_COLUMNS =
+            List.of("cgpa", "sem1", "sem2", "sem3", "sem4", "sem5", "sem6", "sem7", "sem8");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CohortKpiService kpiService;
+
+    public GradeSchemaMigration(DataSource dataSource,
+                                EntityManagerFactory entityManagerFactory,
+                                CohortKpiService kpiService) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.kpiService = kpiService;
+        // entityManagerFactory is only a dependency: it guarantees Hibernate's schema update ran first
+    }
+
+    @PostConstruct
+    public void migrate() {
+        List<String> cgpaType = jdbcTemplate.queryForList(
+                "SELECT type FROM pragma_table_info('student_grades') WHERE name = 'cgpa'", String.class);
+        if (cgpaType.isEmpty() || !isTextType(cgpaType.get(0))) return;
+
+        long start = System.currentTimeMillis();
+        Long discarded = jdbcTemplate.queryForObject("SELECT " + GRADE_COLUMNS.stream()
+                .map(c -> "count(CASE WHEN trim(" + c + ") <> '' AND " + toNumber(c) + " IS NULL THEN 1 END)")
+                .reduce((a, b) -> a + " + " + b).orElseThrow() + " FROM student_grades", Long.class);
+        // Foreign key enforcement is per connection and cannot change inside a transaction,
+        // so the whole rebuild runs on one connection
+        Integer rows = jdbcTemplate.execute((ConnectionCallback<Integer>) GradeSchemaMigration::rebuild);
+        LOG.info("Converted {} grade rows to numeric columns in {}ms ({} non-numeric values set to NULL)",
+                rows, System.currentTimeMillis() - start, discarded);
+
+        // The aggregates were built from the text values, where "NA" counted as a CGPA of 0
+        kpiService.rebuild();
+    }
+
+    private static int rebuild(Connection connection) throws SQLException {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        String columns = String.join(", ", GRADE_COLUMNS);
+        String converted = GRADE_COLUMNS.stream().map(GradeSchemaMigration::toNumber).reduce((a, b) -> a + ", " + b).orElseThrow();
+        String declarations = GRADE_COLUMNS.stream().map(c -> c + " float").reduce((a, b) -> a + ", " + b).orElseThrow();
+
+        boolean enforced = Boolean.TRUE.equals(jdbc.queryForObject("PRAGMA foreign_keys", Boolean.class));
+        boolean autoCommit = connection.getAutoCommit();
+        if (enforced) jdbc.execute("PRAGMA foreign_keys = OFF");
+        try {
+            connection.setAutoCommit(false);
+            jdbc.execute("CREATE TABLE student_grades_numeric (registration_number bigint not null, "
+                    + declarations + ", primary key (registration_number), "
+                    + "foreign key (registration_number) references student_informations (registration_number))");
+            int copied = jdbc.update("INSERT INTO student_grades_numeric (registration_number, " + columns + ") "
+                    + "SELECT registration_number, " + converted + " FROM student_grades");
+            jdbc.execute("DROP TABLE student_grades");
+            jdbc.execute("ALTER TABLE student_grades_numeric RENAME TO student_grades");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_student_grades_cgpa ON student_grades (cgpa)");
+            if (enforced && !jdbc.queryForList("PRAGMA foreign_key_check").isEmpty()) {
+                throw new IllegalStateException("Grade table rebuild left dangling foreign keys");
+            }
+            connection.commit();
+            return copied;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            if (enforced) jdbc.execute("PRAGMA foreign_keys = ON");
+        }
+    }
+
+    private static boolean isTextType(String declaredType) {
+        String type = declaredType.toLowerCase();
+        return type.contains("char") || type.contains("text") || type.contains("clob");
+    }
+
+    /**
+     * Digits and at most one dot, with at least one digit (8, 7.45, 9., .5), so "NA", "-", "1.2.3",
+     * "." and blanks become NULL rather than SQLite's 0 or a truncated prefix.
+     */
+    static String toNumber(String column) {
+        String value = "trim(" + column + ")";
+        return "CASE WHEN " + value + " NOT GLOB '*[^0-9.]*' AND " + value + " GLOB '*[0-9]*'"
+                + " AND " + value + " NOT GLOB '*.*.*'"
+                + " THEN CAST(" + value + " AS REAL) END";
+    }
+}
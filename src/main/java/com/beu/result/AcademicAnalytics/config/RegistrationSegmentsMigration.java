@@ -0,0 +1,56 @@
+package com.beu.result.AcademicAnalytics.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Backfills the batch year, branch code and college code columns of {@code student_informations}
+ * for rows stored before they existed; new rows get them on insert.
+ * <p>
+ * Runs after Hibernate's schema update (it depends on the {@link EntityManagerFactory}) and only
+ * touches rows whose batch year is still NULL. The dashboard aggregates, grouped by these
+ * columns, are built once the application is ready.
+ * </p>
+ */
+@Component
+public class RegistrationSegmentsMigration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrationSegmentsMigration.class);
+
+    /** Registration numbers read YY BBB CCC SSS; same arithmetic as {@code StudentInformations}. */
+    private static final String BACKFILL_SQL = """
+            UPDATE student_informations
+            SET batch_year = registration_number / 1000000000,
+                branch_code = registration_number / 1000000 % 1000,
+                college_code = registration_number / 1000 % 1000
+            WHERE batch_year IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public RegistrationSegmentsMigration(DataSource dataSource,
+                                         PlatformTransactionManager transactionManager,
+                                         EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // entityManagerFactory is only a dependency: it guarantees Hibernate's schema update ran first
+    }
+
+    @PostConstruct
+    public void migrate() {
+        long start = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(BACKFILL_SQL));
+        if (rows != null && rows > 0) {
+            LOG.info("Derived registration segments for {} students in {}ms", rows, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -2,26 +2,52 @@ package com.beu.result.AcademicAnalytics.config;
 
 import com.beu.result.AcademicAnalytics.entity.ResultLink;
 import com.beu.result.AcademicAnalytics.repository.ResultLinkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Dynamic Configuration Registry.
  * Fetches URL templates from the Database (Table: result_links).
+ * <p>
+ * The table is read once into an immutable, versioned snapshot that serves every lookup;
+ * {@link #invalidate()} (called by the link manager after each change) bumps the version and
+ * the next lookup reloads. Lookups are counted on {@code result.links.cache} by
+ * {@code result} (hit, miss); {@code result.links.cache.version} shows the current version.
+ * </p>
  */
 @Component
 public class ResultSourceConfig {
 
+    private static final String CACHE_METER = "result.links.cache";
+
+    /** One load of the table: templates of every link by key, and the active links in table order. */
+    private record LinkRegistry(long version, Map<String, UrlTemplate> templates, Map<String, String> activeLinks) {}
+
     private final ResultLinkRepository repository;
+    private final AtomicLong version = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile LinkRegistry registry;
 
     // Inject Repository
-    public ResultSourceConfig(ResultLinkRepository repository) {
+    public ResultSourceConfig(ResultLinkRepository repository, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.hits = Counter.builder(CACHE_METER).description("Result link lookups, by cache outcome")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(CACHE_METER).description("Result link lookups, by cache outcome")
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder(CACHE_METER + ".version", version, AtomicLong::get)
+                .description("Invalidations of the result link cache").register(meterRegistry);
     }
 
     /**
@@ -47,29 +73,73 @@ public class ResultSourceConfig {
 
             // Batch 2024-28
             repository.save(new ResultLink("1st Sem (24-28)", "https://results.beup.ac.in/ResultsBTech1stSem2024_B2024Pub.aspx?Sem=I&RegNo={REG}", true));
+            invalidate();
         }
     }
 
     /**
-     * Retrieves all ACTIVE links from the database formatted as a Map.
+     * Retrieves all ACTIVE links, in table order, as an unmodifiable Map.
      * This keeps the return type compatible with your existing Ingestion Service.
      */
     public Map<String, String> getAllLinks() {
-        List<ResultLink> links = repository.findByIsActiveTrue();
-
-        // Convert List to LinkedHashMap to preserve DB insertion order
-        return links.stream()
-                .collect(Collectors.toMap(
-                        ResultLink::getLinkKey,   // FIXED: Changed from getAttributeName
-                        ResultLink::getUrlTemplate,
-                        (oldValue, newValue) -> oldValue,
-                        LinkedHashMap::new
-                ));
+        return registry().activeLinks();
     }
 
+    /** URL template of a link (active or not); null for an unknown key. */
     public String getUrl(String key) {
-        return repository.findByLinkKey(key)
-                .map(ResultLink::getUrlTemplate)
-                .orElse(null);
+        UrlTemplate template = getTemplate(key);
+        return template != null ? template.pattern() : null;
+    }
+
+    /** Pre-split template of a link (active or not); null for an unknown key. */
+    public UrlTemplate getTemplate(String key) {
+        return registry().templates().get(key);
+    }
+
+    /** A configured link key, or an ad-hoc {@code http...} URL template passed in its place. */
+    public UrlTemplate resolve(String linkKeyOrUrl) {
+        if (linkKeyOrUrl == null) return null;
+        return linkKeyOrUrl.startsWith("http") ? UrlTemplate.of(linkKeyOrUrl) : getTemplate(linkKeyOrUrl);
+    }
+
+    // ==========================================
+    // CACHE
+    // ==========================================
+
+    /** Drops the cached links; the next lookup reads the table again. Call after every change to it. */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private LinkRegistry registry() {
+        LinkRegistry current = registry;
+        if (current != null && current.version() == version.get()) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return reload();
+    }
+
+    /**
+     * Loads the table under the version read before the query. A change that lands while it
+     * runs bumps the version again, so a stale snapshot is never served twice.
+     */
+    private synchronized LinkRegistry reload() {
+        long loadVersion = version.get();
+        LinkRegistry current = registry;
+        if (current != null && current.version() == loadVersion) return current; // loaded by a concurrent caller
+
+        List<ResultLink> links = repository.findAll();
+        Map<String, UrlTemplate> templates = new HashMap<>();
+        Map<String, String> activeLinks = new LinkedHashMap<>();
+        for (ResultLink link : links) {
+            templates.put(link.getLinkKey(), UrlTemplate.of(link.getUrlTemplate()));
+            if (link.isActive()) activeLinks.putIfAbsent(link.getLinkKey(), link.getUrlTemplate());
+        }
+        LinkRegistry loaded = new LinkRegistry(loadVersion, Collections.unmodifiableMap(templates),
+                Collections.unmodifiableMap(activeLinks));
+        registry = loaded;
+        return loaded;
     }
-}
\ No newline at end of file
+}
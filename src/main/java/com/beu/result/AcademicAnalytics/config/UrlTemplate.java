@@ -0,0 +1,47 @@
+package com.beu.result.AcademicAnalytics.config;
+
+import java.util.regex.Pattern;
+
+/**
+ * A result URL template split once around its {@code {REG}} placeholders, so building the URL
+ * of each registration number is a plain concatenation instead of a {@code String.replace} scan.
+ */
+public final class UrlTemplate {
+
+    public static final String PLACEHOLDER = "{REG}";
+
+    private final String pattern;
+    private final String[] parts;
+
+    private UrlTemplate(String pattern) {
+        this.pattern = pattern;
+        this.parts = pattern.split(Pattern.quote(PLACEHOLDER), -1);
+    }
+
+    public static UrlTemplate of(String pattern) {
+        return pattern != null ? new UrlTemplate(pattern) : null;
+    }
+
+    /** The template as configured, placeholders included. */
+    public String pattern() {
+        return pattern;
+    }
+
+    /** The URL of one registration number. */
+    public String expand(long regNo) {
+        if (parts.length == 2) return parts[0] + regNo + parts[1];
+
+        String reg = Long.toString(regNo);
+        StringBuilder url = new StringBuilder(pattern.length() + parts.length * reg.length());
+        url.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            url.append(reg).append(parts[i]);
+        }
+        return url.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -1,17 +1,21 @@
 package com.beu.result.AcademicAnalytics.controller;
 
-import com.beu.result.AcademicAnalytics.entity.StudentInformations; // UPDATED IMPORT
-import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.beu.result.AcademicAnalytics.entity.CohortKpiAggregate;
+import com.beu.result.AcademicAnalytics.repository.StudentFilter;
+import com.beu.result.AcademicAnalytics.service.CohortKpiService;
+import com.beu.result.AcademicAnalytics.service.StudentFacetService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Primary Controller for the Business Intelligence (BI) Dashboard.
@@ -22,86 +26,88 @@ import java.util.stream.Collectors;
 public class AdminDashboardController {
 
     private static final Logger LOG = LoggerFactory.getLogger(AdminDashboardController.class);
-    private final StudentInfoRepository studentRepository;
+    private final CohortKpiService kpiService;
+    private final StudentFacetService facetService;
 
-    public AdminDashboardController(StudentInfoRepository studentRepository) {
-        this.studentRepository = studentRepository;
+    public AdminDashboardController(CohortKpiService kpiService, StudentFacetService facetService) {
+        this.kpiService = kpiService;
+        this.facetService = facetService;
     }
 
     /**
-     * Renders the main analytics view.
+     * Renders the main analytics view from the cohort aggregates.
      */
     @GetMapping
     public String renderDashboard(
             @RequestParam(name = "year", required = false) String year,
             @RequestParam(name = "branch", required = false) String branch,
+            @RequestParam(name = "college", required = false) String college,
             Model model) {
 
         long startTime = System.currentTimeMillis();
 
         // 1. FILTER NORMALIZATION
-        String yearPrefix = normalizeYearInput(year);
-        String branchParam = (branch != null && !branch.trim().isEmpty() && !branch.equals("All")) ? branch.trim() : null;
-
-        // 2. DATA RETRIEVAL (Using new Entity)
-        List<StudentInformations> dataset;
-        if (yearPrefix == null && branchParam == null) {
-            dataset = studentRepository.findAll();
-        } else {
-            dataset = studentRepository.searchByYearAndBranch(yearPrefix, branchParam);
+        Integer batchYear = StudentFilter.parseBatchYear(year);
+        Integer branchCode = StudentFilter.parseCode(branch);
+        Integer collegeCode = StudentFilter.parseCode(college);
+
+        // 2. DATA RETRIEVAL (precomputed per-cohort totals, maintained on ingest)
+        List<CohortKpiAggregate> cohorts = kpiService.findMatching(batchYear, branchCode, collegeCode);
+
+        long totalStudents = 0;
+        long gradedCount = 0;
+        long passCount = 0;
+        double cgpaSum = 0;
+        int[] distributionBuckets = new int[CohortKpiAggregate.BUCKETS];
+        Map<String, double[]> branchTotals = new TreeMap<>(); // branch -> {cgpa sum, graded count}
+        for (CohortKpiAggregate cohort : cohorts) {
+            totalStudents += cohort.getStudentCount();
+            gradedCount += cohort.getGradedCount();
+            passCount += cohort.getPassCount();
+            cgpaSum += cohort.getCgpaSum();
+            for (int i = 0; i < distributionBuckets.length; i++) distributionBuckets[i] += (int) cohort.getBucket(i);
+            if (cohort.getGradedCount() > 0) {
+                String label = facetService.branchName(cohort.getBranchCode()) + " (" + cohort.getBranchCode() + ")";
+                double[] totals = branchTotals.computeIfAbsent(label, k -> new double[2]);
+                totals[0] += cohort.getCgpaSum();
+                totals[1] += cohort.getGradedCount();
+            }
         }
 
-        LOG.info("Dashboard query fetched {} records. Filters: [Year={}, Branch={}]",
-                dataset.size(), yearPrefix, branchParam);
+        LOG.info("Dashboard read {} cohorts ({} students). Filters: [Year={}, Branch={}, College={}]",
+                cohorts.size(), totalStudents, batchYear, branchCode, collegeCode);
 
         // 3. KPI COMPUTATION
 
         // KPI A: Branch-wise Performance (Average CGPA)
-        Map<String, Double> branchAvgCgpa = dataset.stream()
-                .filter(s -> s.getBranch() != null && hasValidCgpa(s))
-                .collect(Collectors.groupingBy(
-                        StudentInformations::getBranch, // Updated Method Reference
-                        Collectors.averagingDouble(s -> safeParseDouble(s.getGrade().getCgpa()))
-                ));
-
-        // KPI B: Grade Distribution Buckets
-        int[] distributionBuckets = new int[5];
-        for (StudentInformations s : dataset) {
-            if (hasValidCgpa(s)) {
-                double cgpa = safeParseDouble(s.getGrade().getCgpa());
-                if (cgpa >= 9.0) distributionBuckets[4]++;
-                else if (cgpa >= 8.0) distributionBuckets[3]++;
-                else if (cgpa >= 7.0) distributionBuckets[2]++;
-                else if (cgpa >= 6.0) distributionBuckets[1]++;
-                else distributionBuckets[0]++;
-            }
-        }
+        Map<String, Double> branchAvgCgpa = new LinkedHashMap<>();
+        branchTotals.forEach((name, totals) -> branchAvgCgpa.put(name, totals[0] / totals[1]));
+
+        // KPI B: Grade Distribution Buckets (summed above)
 
         // KPI C: Pass/Fail Ratio
-        long passCount = dataset.stream()
-                .filter(s -> hasValidCgpa(s) && safeParseDouble(s.getGrade().getCgpa()) >= 5.0)
-                .count();
-        long failCount = dataset.size() - passCount;
+        long failCount = totalStudents - passCount;
 
         // KPI D: Institutional Average
-        double institutionalAverage = dataset.stream()
-                .filter(this::hasValidCgpa)
-                .mapToDouble(s -> safeParseDouble(s.getGrade().getCgpa()))
-                .average().orElse(0.0);
+        double institutionalAverage = gradedCount > 0 ? cgpaSum / gradedCount : 0.0;
 
         // 4. VIEW POPULATION
-        model.addAttribute("branches", studentRepository.findDistinctBranches());
-        model.addAttribute("batchYears", studentRepository.findDistinctBatchYears());
+        // Dropdowns from the cached facets, each counted under the other filters
+        StudentFilter filter = new StudentFilter(batchYear, branchCode, collegeCode, null);
+        model.addAttribute("branches", facetService.branches(filter));
+        model.addAttribute("batchYears", facetService.batchYears(filter));
+        model.addAttribute("colleges", facetService.colleges(filter));
 
-        model.addAttribute("selectedYear", year);
-        model.addAttribute("selectedBranch", branch);
+        model.addAttribute("selectedYear", batchYear);
+        model.addAttribute("selectedBranch", branchCode);
+        model.addAttribute("selectedCollege", collegeCode);
 
         model.addAttribute("branchLabels", branchAvgCgpa.keySet());
         model.addAttribute("branchValues", branchAvgCgpa.values());
         model.addAttribute("rangeData", distributionBuckets);
         model.addAttribute("passData", Arrays.asList(passCount, failCount));
 
-        model.addAttribute("totalStudents", dataset.size());
+        model.addAttribute("totalStudents", totalStudents);
         model.addAttribute("avgCollegeCgpa", institutionalAverage);
 
         LOG.debug("Dashboard rendering completed in {}ms", System.currentTimeMillis() - startTime);
@@ -109,27 +115,15 @@ public class AdminDashboardController {
         return "dashboard";
     }
 
-    // ==========================================
-    // HELPER UTILITIES
-    // ==========================================
-
-    private String normalizeYearInput(String year) {
-        if (year != null && !year.trim().isEmpty() && !year.equals("All")) {
-            String trimmed = year.trim();
-            return (trimmed.length() == 4) ? trimmed.substring(2) : trimmed;
-        }
-        return null;
-    }
-
-    private boolean hasValidCgpa(StudentInformations s) {
-        return s.getGrade() != null && s.getGrade().getCgpa() != null;
-    }
-
-    private double safeParseDouble(String value) {
-        try {
-            return Double.parseDouble(value);
-        } catch (NumberFormatException | NullPointerException e) {
-            return 0.0;
-        }
+    /**
+     * Recomputes the dashboard aggregates from the student tables and drops the cached
+     * dropdown facets, e.g. after the database was edited outside the application.
+     */
+    @PostMapping("/api/analytics/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildAggregates() {
+        int cohorts = kpiService.rebuild();
+        facetService.invalidate();
+        return ResponseEntity.ok(Map.of("status", "REBUILT", "cohorts", cohorts));
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.beu.result.AcademicAnalytics.controller;
 
+import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
 import com.beu.result.AcademicAnalytics.entity.ResultLink;
 import com.beu.result.AcademicAnalytics.repository.ResultLinkRepository;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -13,9 +14,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes; // Import
 public class LinkManagerController {
 
     private final ResultLinkRepository repository;
+    private final ResultSourceConfig sourceConfig;
 
-    public LinkManagerController(ResultLinkRepository repository) {
+    public LinkManagerController(ResultLinkRepository repository, ResultSourceConfig sourceConfig) {
         this.repository = repository;
+        this.sourceConfig = sourceConfig;
     }
 
     // 1. Show the Management Page
@@ -42,6 +45,7 @@ public class LinkManagerController {
                 existing.setActive(link.isActive());
                 repository.save(existing);
             }
+            sourceConfig.invalidate();
             redirectAttributes.addFlashAttribute("successMessage", "Link configuration saved successfully!");
         } catch (DataIntegrityViolationException e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error: Link Key '" + link.getLinkKey() + "' already exists.");
@@ -55,6 +59,7 @@ public class LinkManagerController {
         repository.findById(id).ifPresent(link -> {
             link.setActive(!link.isActive());
             repository.save(link);
+            sourceConfig.invalidate();
         });
         return "redirect:/admin/links";
     }
@@ -63,6 +68,7 @@ public class LinkManagerController {
     @GetMapping("/delete/{id}")
     public String deleteLink(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         repository.deleteById(id);
+        sourceConfig.invalidate();
         redirectAttributes.addFlashAttribute("successMessage", "Link deleted successfully.");
         return "redirect:/admin/links";
     }
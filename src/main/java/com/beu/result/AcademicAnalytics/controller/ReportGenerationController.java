@@ -1,12 +1,16 @@
 package com.beu.result.AcademicAnalytics.controller;
 
 import com.beu.result.AcademicAnalytics.entity.StudentInformations; // UPDATED ENTITY
+import com.beu.result.AcademicAnalytics.repository.StudentFilter;
 import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.beu.result.AcademicAnalytics.service.RegistryExportService;
+import com.beu.result.AcademicAnalytics.service.StudentFacetService;
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,15 +18,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.OptionalLong;
 
 /**
  * Controller for Report Generation and Data Export.
  * <p>
  * Handles the detailed "Student Registry" view with pagination, search, and sorting capabilities.
- * Also manages the export of filtered datasets to Excel (XLSX) format for offline analysis.
+ * Also manages the export of filtered datasets to Excel (XLSX) or CSV for offline analysis.
  * </p>
  */
 @Controller
@@ -31,9 +34,14 @@ public class ReportGenerationController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportGenerationController.class);
     private final StudentInfoRepository studentRepository;
+    private final RegistryExportService exportService;
+    private final StudentFacetService facetService;
 
-    public ReportGenerationController(StudentInfoRepository studentRepository) {
+    public ReportGenerationController(StudentInfoRepository studentRepository, RegistryExportService exportService,
+                                      StudentFacetService facetService) {
         this.studentRepository = studentRepository;
+        this.exportService = exportService;
+        this.facetService = facetService;
     }
 
     // ==========================================
@@ -49,6 +57,7 @@ public class ReportGenerationController {
 
             @RequestParam(name = "year", required = false) String year,
             @RequestParam(name = "branch", required = false) String branch,
+            @RequestParam(name = "college", required = false) String college,
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "rank", required = false) Boolean rank,
             @RequestParam(name = "showBacklog", required = false) Boolean showBacklog,
@@ -58,37 +67,32 @@ public class ReportGenerationController {
 
         long startTime = System.currentTimeMillis();
 
-        // 1. Retrieve & Filter Dataset (Using Updated Entity)
-        List<StudentInformations> filteredDataset = executeFilterQuery(year, branch, name, rank);
+        // 1. Retrieve one page of the filtered dataset; filtering, ordering and paging run in SQLite
+        StudentFilter filter = StudentFilter.of(year, branch, college, name);
+        int pageSize = Math.max(1, size);
+        Page<StudentInformations> result = executeFilterQuery(filter, rank, PageRequest.of(Math.max(page, 1) - 1, pageSize));
 
-        // 2. Pagination Logic
-        int totalItems = filteredDataset.size();
-        int totalPages = (int) Math.ceil((double) totalItems / size);
-
-        // Normalize page request
-        if (page < 1) page = 1;
-        if (page > totalPages && totalPages > 0) page = totalPages;
-
-        int startIdx = (page - 1) * size;
-        int endIdx = Math.min(startIdx + size, totalItems);
-
-        List<StudentInformations> pageContent;
-        if (startIdx >= totalItems) {
-            pageContent = Collections.emptyList();
-        } else {
-            pageContent = filteredDataset.subList(startIdx, endIdx);
+        // 2. Normalize page request: past the end shows the last page
+        int totalPages = result.getTotalPages();
+        if (page > totalPages && totalPages > 0) {
+            result = executeFilterQuery(filter, rank, PageRequest.of(totalPages - 1, pageSize));
         }
+        page = result.getNumber() + 1;
+        long totalItems = result.getTotalElements();
+        List<StudentInformations> pageContent = result.getContent();
 
         // 3. View Attributes Population
         model.addAttribute("students", pageContent);
 
-        // Context Filters (Dropdowns)
-        model.addAttribute("branches", studentRepository.findDistinctBranches());
-        model.addAttribute("batchYears", studentRepository.findDistinctBatchYears());
+        // Context Filters (Dropdowns), counted under the other active filters
+        model.addAttribute("branches", facetService.branches(filter));
+        model.addAttribute("batchYears", facetService.batchYears(filter));
+        model.addAttribute("colleges", facetService.colleges(filter));
 
         // Preserve Filter State
-        model.addAttribute("selectedYear", year);
-        model.addAttribute("selectedBranch", branch);
+        model.addAttribute("selectedYear", filter.batchYear());
+        model.addAttribute("selectedBranch", filter.branchCode());
+        model.addAttribute("selectedCollege", filter.collegeCode());
         model.addAttribute("selectedName", name);
         model.addAttribute("isRanked", rank);
         model.addAttribute("showBacklog", showBacklog != null && showBacklog);
@@ -97,7 +101,7 @@ public class ReportGenerationController {
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", totalPages);
         model.addAttribute("totalItems", totalItems);
-        model.addAttribute("pageSize", size);
+        model.addAttribute("pageSize", pageSize);
 
         LOG.debug("Registry view loaded. Page {}/{} ({}ms)", page, totalPages, System.currentTimeMillis() - startTime);
 
@@ -105,10 +109,10 @@ public class ReportGenerationController {
     }
 
     // ==========================================
-    // 2. DATA EXPORT (EXCEL)
+    // 2. DATA EXPORT (EXCEL / CSV)
     // ==========================================
     /**
-     * Generates and downloads an Excel report of the current filtered view.
+     * Streams an Excel report of the current filtered view.
      * Respects the 'showBacklog' toggle to switch between SGPA and Failed Subjects.
      * Endpoint: /reports/export/excel
      */
@@ -116,135 +120,61 @@ public class ReportGenerationController {
     public void exportToExcel(
             @RequestParam(name = "year", required = false) String year,
             @RequestParam(name = "branch", required = false) String branch,
+            @RequestParam(name = "college", required = false) String college,
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "rank", required = false) Boolean rank,
             @RequestParam(defaultValue = "false") boolean showBacklog,
             HttpServletResponse response) throws IOException {
 
-        LOG.info("Initiating Excel export. Filters: [Year={}, Branch={}, Rank={}, ShowBacklog={}]",
-                year, branch, rank, showBacklog);
+        StudentFilter filter = StudentFilter.of(year, branch, college, name);
+        OptionalLong expectedRows = facetService.count(filter);
+        LOG.info("Initiating Excel export. Filters: [Year={}, Branch={}, College={}, Rank={}, ShowBacklog={}], Rows: {}",
+                year, branch, college, rank, showBacklog, expectedRows.isPresent() ? expectedRows.getAsLong() : "?");
 
-        List<StudentInformations> dataset = executeFilterQuery(year, branch, name, rank);
+        // Refuse up front rather than breaking off a half-streamed workbook at the sheet's last row
+        if (expectedRows.isPresent() && expectedRows.getAsLong() > RegistryExportService.XLSX_MAX_ROWS) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "The selection has " + expectedRows.getAsLong()
+                    + " students, more than one Excel sheet holds. Narrow the filters or use the CSV export.");
+            return;
+        }
 
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition", "attachment; filename=academic_registry_export.xlsx");
+        exportService.writeXlsx(filter, Boolean.TRUE.equals(rank), showBacklog, response.getOutputStream());
+    }
 
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Academic Registry");
-
-            // Header Style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font font = workbook.createFont();
-            font.setBold(true);
-            headerStyle.setFont(font);
-
-            // Create Headers
-            Row headerRow = sheet.createRow(0);
-            String[] columns = {"Reg No", "Student Name", "Branch", "Sem 1", "Sem 2", "Sem 3", "Sem 4", "Sem 5", "Sem 6", "Sem 7", "Sem 8", "CGPA"};
-
-            for (int i = 0; i < columns.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columns[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Populate Data
-            int rowIdx = 1;
-            for (StudentInformations s : dataset) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(s.getRegistrationNumber());
-                row.createCell(1).setCellValue(s.getStudentName());
-                row.createCell(2).setCellValue(s.getBranch());
-
-                if (s.getGrade() != null) {
-                    // Determine whether to pull from Grade or Backlog entity
-                    if (showBacklog && s.getGrade().getBacklog() != null) {
-                        // Pull Failed Subjects/Remarks from Backlog
-                        row.createCell(3).setCellValue(s.getGrade().getBacklog().getSem1());
-                        row.createCell(4).setCellValue(s.getGrade().getBacklog().getSem2());
-                        row.createCell(5).setCellValue(s.getGrade().getBacklog().getSem3());
-                        row.createCell(6).setCellValue(s.getGrade().getBacklog().getSem4());
-                        row.createCell(7).setCellValue(s.getGrade().getBacklog().getSem5());
-                        row.createCell(8).setCellValue(s.getGrade().getBacklog().getSem6());
-                        row.createCell(9).setCellValue(s.getGrade().getBacklog().getSem7());
-                        row.createCell(10).setCellValue(s.getGrade().getBacklog().getSem8());
-                    } else {
-                        // Default: Pull SGPA from Grade
-                        row.createCell(3).setCellValue(s.getGrade().getSem1());
-                        row.createCell(4).setCellValue(s.getGrade().getSem2());
-                        row.createCell(5).setCellValue(s.getGrade().getSem3());
-                        row.createCell(6).setCellValue(s.getGrade().getSem4());
-                        row.createCell(7).setCellValue(s.getGrade().getSem5());
-                        row.createCell(8).setCellValue(s.getGrade().getSem6());
-                        row.createCell(9).setCellValue(s.getGrade().getSem7());
-                        row.createCell(10).setCellValue(s.getGrade().getSem8());
-                    }
-                    // Always include CGPA
-                    row.createCell(11).setCellValue(s.getGrade().getCgpa());
-                } else {
-                    // Fill with '-' if no grade record exists
-                    for (int j = 3; j <= 11; j++) {
-                        row.createCell(j).setCellValue("-");
-                    }
-                }
-            }
-
-            // Auto-size columns for readability
-            for (int i = 0; i < columns.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(response.getOutputStream());
-            LOG.info("Excel export completed successfully. Rows: {}, View: {}",
-                    dataset.size(), showBacklog ? "Backlogs" : "Grades");
-        }
+    /**
+     * Same report as CSV: no workbook at all, each row goes straight to the response.
+     * Endpoint: /reports/export/csv
+     */
+    @GetMapping("/export/csv")
+    public void exportToCsv(
+            @RequestParam(name = "year", required = false) String year,
+            @RequestParam(name = "branch", required = false) String branch,
+            @RequestParam(name = "college", required = false) String college,
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "rank", required = false) Boolean rank,
+            @RequestParam(defaultValue = "false") boolean showBacklog,
+            HttpServletResponse response) throws IOException {
+
+        LOG.info("Initiating CSV export. Filters: [Year={}, Branch={}, College={}, Rank={}, ShowBacklog={}]",
+                year, branch, college, rank, showBacklog);
+
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=academic_registry_export.csv");
+        exportService.writeCsv(StudentFilter.of(year, branch, college, name), Boolean.TRUE.equals(rank),
+                showBacklog, response.getOutputStream());
     }
 
     // ==========================================
     // HELPER: FILTERING ENGINE
     // ==========================================
 
-    private List<StudentInformations> executeFilterQuery(String year, String branch, String name, Boolean rank) {
-        // 1. Normalize Parameters
-        String yearPrefix = (year != null && !year.trim().isEmpty() && !year.equals("All")) ? year.trim() : null;
-        if (yearPrefix != null && yearPrefix.length() == 4) yearPrefix = yearPrefix.substring(2);
-
-        String branchParam = (branch != null && !branch.trim().isEmpty() && !branch.equals("All")) ? branch.trim() : null;
-
-        // 2. Database Retrieval
-        List<StudentInformations> results;
-        if (yearPrefix == null && branchParam == null) {
-            results = studentRepository.findAll();
-        } else {
-            results = studentRepository.searchByYearAndBranch(yearPrefix, branchParam);
-        }
-
-        // 3. In-Memory Name Filter
-        if (name != null && !name.trim().isEmpty()) {
-            String searchName = name.trim().toLowerCase();
-            results = results.stream()
-                    .filter(s -> s.getStudentName() != null && s.getStudentName().toLowerCase().contains(searchName))
-                    .collect(Collectors.toList());
-        }
-
-        // 4. Ranking Logic (Sort by CGPA Descending)
-        if (Boolean.TRUE.equals(rank)) {
-            results = results.stream()
-                    .sorted((s1, s2) -> {
-                        Double cgpa1 = safeParseDouble(s1.getGrade() != null ? s1.getGrade().getCgpa() : "0");
-                        Double cgpa2 = safeParseDouble(s2.getGrade() != null ? s2.getGrade().getCgpa() : "0");
-                        return cgpa2.compareTo(cgpa1);
-                    })
-                    .collect(Collectors.toList());
-        }
-        return results;
-    }
-
-    private Double safeParseDouble(String val) {
-        try {
-            return Double.parseDouble(val);
-        } catch (NumberFormatException | NullPointerException e) {
-            return 0.0;
-        }
+    private Page<StudentInformations> executeFilterQuery(StudentFilter filter, Boolean rank, Pageable pageable) {
+        // Only the filters that are set reach the WHERE clause, so each one is an indexed lookup;
+        // the total comes from the facet cache unless the name search needs a COUNT query
+        OptionalLong total = facetService.count(filter);
+        return studentRepository.findRegistryPage(filter, Boolean.TRUE.equals(rank), pageable,
+                total.isPresent() ? total.getAsLong() : null);
     }
-}
\ No newline at end of file
+}
@@ -2,12 +2,19 @@ package com.beu.result.AcademicAnalytics.controller;
 
 import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
 import com.beu.result.AcademicAnalytics.service.DataSyncStatus;
-import com.beu.result.AcademicAnalytics.service.TranscriptGenerationService;
+import com.beu.result.AcademicAnalytics.service.DiscoveryStatus;
+import com.beu.result.AcademicAnalytics.service.IngestionJobScheduler;
+import com.beu.result.AcademicAnalytics.service.IngestionJobStatus;
+import com.beu.result.AcademicAnalytics.service.RegistrationDiscoveryService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,16 +24,22 @@ import java.util.Map;
 @Controller
 public class ResultIngestionController {
 
-    private final TranscriptGenerationService ingestionService;
+    private final IngestionJobScheduler jobScheduler;
     private final ResultSourceConfig sourceConfig;
     private final DataSyncStatus syncStatus;
+    private final DiscoveryStatus discoveryStatus;
+    private final RegistrationDiscoveryService discoveryService;
 
-    public ResultIngestionController(TranscriptGenerationService ingestionService,
+    public ResultIngestionController(IngestionJobScheduler jobScheduler,
                                      ResultSourceConfig sourceConfig,
-                                     DataSyncStatus syncStatus) {
-        this.ingestionService = ingestionService;
+                                     DataSyncStatus syncStatus,
+                                     DiscoveryStatus discoveryStatus,
+                                     RegistrationDiscoveryService discoveryService) {
+        this.jobScheduler = jobScheduler;
         this.sourceConfig = sourceConfig;
         this.syncStatus = syncStatus;
+        this.discoveryStatus = discoveryStatus;
+        this.discoveryService = discoveryService;
     }
 
     // ==========================================
@@ -50,13 +63,20 @@ public class ResultIngestionController {
 
     /**
      * API Endpoint: Initiate Batch Ingestion.
+     * With {@code incremental=true} only registrations not yet synced for the link are fetched;
+     * {@code recheckNoRecord=true} additionally re-fetches numbers that previously had no record.
+     * {@code useDiscovered=true} limits probed blocks to the registrations discovery found there.
      */
     @PostMapping("/api/ingestion/start-batch")
     @ResponseBody
     public Map<String, Object> initiateIngestionBatch(
             @RequestParam String linkKey,
             @RequestParam long startReg,
-            @RequestParam long endReg
+            @RequestParam long endReg,
+            @RequestParam(defaultValue = "false") boolean incremental,
+            @RequestParam(defaultValue = "false") boolean recheckNoRecord,
+            @RequestParam(defaultValue = "false") boolean useDiscovered,
+            @RequestParam(defaultValue = "5") int priority
     ) {
         Map<String, Object> response = new HashMap<>();
 
@@ -67,18 +87,123 @@ public class ResultIngestionController {
             return response;
         }
 
-        if (syncStatus.isJobActive()) {
+        // Delegate to Scheduler: jobs queue up behind running ones instead of being refused
+        // Both "Keys" (db lookup) and "Raw URLs" are accepted
+        IngestionJobStatus job = jobScheduler.submit(linkKey, startReg, endReg, priority,
+                incremental, recheckNoRecord, useDiscovered);
+
+        response.put("status", "BATCH_INITIATED");
+        response.put("jobId", job.getJobId());
+        response.put("message", "Ingestion job #" + job.getJobId() + " queued for range: " + startReg + " - " + endReg);
+        return response;
+    }
+
+    /**
+     * API Endpoint: Probe a range for populated registration numbers.
+     * Results are stored per link and college/branch block and used by {@code useDiscovered}
+     * batches. Discovery runs next to ingestion jobs; it is only refused while
+     * {@code discovery.max-concurrent-runs} other probes are running.
+     */
+    @PostMapping("/api/ingestion/discover")
+    @ResponseBody
+    public Map<String, Object> initiateDiscovery(
+            @RequestParam String linkKey,
+            @RequestParam long startReg,
+            @RequestParam long endReg
+    ) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (startReg > endReg) {
+            response.put("status", "ERROR");
+            response.put("message", "Start Registration cannot be greater than End Registration.");
+            return response;
+        }
+
+        if (!discoveryService.tryReserveRun()) {
             response.put("status", "BUSY");
-            response.put("message", "A job is already running. Please wait.");
+            response.put("message", "A discovery probe is already running. Please wait.");
             return response;
         }
 
-        // Delegate to Service
-        // The service now handles both "Keys" (db lookup) and "Raw URLs"
-        ingestionService.processResultRange(linkKey, startReg, endReg);
+        discoveryService.discoverRange(linkKey, startReg, endReg);
 
         response.put("status", "BATCH_INITIATED");
-        response.put("message", "Ingestion job queued for range: " + startReg + " - " + endReg);
+        response.put("message", "Discovery probe queued for range: " + startReg + " - " + endReg);
+        return response;
+    }
+
+    /**
+     * API Endpoint: Restart an interrupted, failed or cancelled job from its checkpoint.
+     * Records that already reached READY or NO_RECORD are not fetched again.
+     * (Un-pausing a running job is {@code /api/ingestion/jobs/{jobId}/resume}.)
+     */
+    @PostMapping("/api/ingestion/jobs/{jobId}/restart")
+    @ResponseBody
+    public Map<String, Object> restartIngestionJob(@PathVariable Long jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (jobScheduler.resubmit(jobId).isEmpty()) {
+            response.put("status", "ERROR");
+            response.put("message", "Unknown ingestion job #" + jobId);
+            return response;
+        }
+
+        response.put("status", "BATCH_INITIATED");
+        response.put("jobId", jobId);
+        response.put("message", "Restarting ingestion job #" + jobId + " from its checkpoint");
+        return response;
+    }
+
+    // ==========================================
+    // JOB SCHEDULER API
+    // ==========================================
+
+    /**
+     * API Endpoint: All queued, running and recently finished jobs (newest first).
+     */
+    @GetMapping("/api/ingestion/jobs")
+    @ResponseBody
+    public List<IngestionJobStatus> listIngestionJobs() {
+        return jobScheduler.list();
+    }
+
+    /**
+     * API Endpoint: Status of a single job.
+     */
+    @GetMapping("/api/ingestion/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<IngestionJobStatus> getIngestionJob(@PathVariable Long jobId) {
+        return ResponseEntity.of(jobScheduler.find(jobId));
+    }
+
+    @PostMapping("/api/ingestion/jobs/{jobId}/pause")
+    @ResponseBody
+    public Map<String, Object> pauseIngestionJob(@PathVariable Long jobId) {
+        return controlResponse(jobId, jobScheduler.pause(jobId), "paused", "is not running");
+    }
+
+    @PostMapping("/api/ingestion/jobs/{jobId}/resume")
+    @ResponseBody
+    public Map<String, Object> unpauseIngestionJob(@PathVariable Long jobId) {
+        return controlResponse(jobId, jobScheduler.resume(jobId), "resumed", "is not paused");
+    }
+
+    @PostMapping("/api/ingestion/jobs/{jobId}/cancel")
+    @ResponseBody
+    public Map<String, Object> cancelIngestionJob(@PathVariable Long jobId) {
+        return controlResponse(jobId, jobScheduler.cancel(jobId), "cancelled", "has already finished");
+    }
+
+    private Map<String, Object> controlResponse(Long jobId, boolean applied, String action, String reason) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", jobId);
+        if (applied) {
+            response.put("status", "OK");
+            response.put("message", "Ingestion job #" + jobId + " " + action);
+        } else {
+            response.put("status", "ERROR");
+            response.put("message", "Ingestion job #" + jobId + " is unknown or " + reason);
+        }
         return response;
     }
 
@@ -90,4 +215,32 @@ public class ResultIngestionController {
     public DataSyncStatus getIngestionTelemetry() {
         return syncStatus;
     }
+
+    /**
+     * API Endpoint: Stream Progress Telemetry (Server-Sent Events).
+     * Replays the events missed since {@code Last-Event-ID} when a client reconnects.
+     */
+    @GetMapping(value = "/api/ingestion/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamIngestionTelemetry(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return syncStatus.eventStream().subscribe(lastEventId);
+    }
+
+    /**
+     * API Endpoint: Poll Discovery Telemetry (separate from the ingestion counters).
+     */
+    @GetMapping("/api/ingestion/discover/progress")
+    @ResponseBody
+    public DiscoveryStatus getDiscoveryTelemetry() {
+        return discoveryStatus;
+    }
+
+    /**
+     * API Endpoint: Stream Discovery Telemetry (Server-Sent Events).
+     */
+    @GetMapping(value = "/api/ingestion/discover/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamDiscoveryTelemetry(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return discoveryStatus.eventStream().subscribe(lastEventId);
+    }
 }
\ No newline at end of file
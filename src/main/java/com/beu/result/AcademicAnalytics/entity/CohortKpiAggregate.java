@@ -0,0 +1,83 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Running dashboard totals for one cohort: batch year, branch code and college code, the
+ * leading segments of the registration number.
+ * <p>
+ * {@code gradedCount} counts students with a CGPA; {@code cgpaSum} and the histogram
+ * {@code bucket0..bucket4} (below 6, 6-7, 7-8, 8-9, 9 and up) cover only those students.
+ * Maintained by {@code CohortKpiService} in the same transaction as the student rows.
+ * </p>
+ */
+@Entity
+@Table(name = "cohort_kpi_aggregates")
+@IdClass(CohortKpiAggregate.Key.class)
+@Data
+@NoArgsConstructor
+public class CohortKpiAggregate {
+
+    public static final int BUCKETS = 5;
+
+    @Id
+    @Column(name = "batch_year")
+    private Integer batchYear;
+
+    @Id
+    @Column(name = "branch_code")
+    private Integer branchCode;
+
+    @Id
+    @Column(name = "college_code")
+    private Integer collegeCode;
+
+    private long studentCount;
+    private long gradedCount;
+    private long passCount;
+    private double cgpaSum;
+
+    private long bucket0;
+    private long bucket1;
+    private long bucket2;
+    private long bucket3;
+    private long bucket4;
+
+    public CohortKpiAggregate(Integer batchYear, Integer branchCode, Integer collegeCode) {
+        this.batchYear = batchYear;
+        this.branchCode = branchCode;
+        this.collegeCode = collegeCode;
+    }
+
+    public long getBucket(int bucket) {
+        switch (bucket) {
+            case 0: return bucket0; case 1: return bucket1; case 2: return bucket2;
+            case 3: return bucket3; case 4: return bucket4; default: return 0;
+        }
+    }
+
+    public void addToBucket(int bucket, long delta) {
+        switch (bucket) {
+            case 0 -> bucket0 += delta; case 1 -> bucket1 += delta; case 2 -> bucket2 += delta;
+            case 3 -> bucket3 += delta; case 4 -> bucket4 += delta;
+        }
+    }
+
+    public boolean isEmpty() {
+        return studentCount <= 0;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer batchYear;
+        private Integer branchCode;
+        private Integer collegeCode;
+    }
+}
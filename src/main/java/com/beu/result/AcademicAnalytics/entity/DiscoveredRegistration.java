@@ -0,0 +1,53 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A registration number found to exist on one link by a discovery probe of its {@link RegistrationBlock}.
+ */
+@Entity
+@Table(name = "discovered_registrations")
+@IdClass(DiscoveredRegistration.Key.class)
+@Data
+@NoArgsConstructor
+public class DiscoveredRegistration {
+
+    @Id
+    @Column(name = "link_key", length = 2048)
+    private String linkKey;
+
+    @Id
+    private Long prefix;
+
+    @Id
+    @Column(name = "registration_number")
+    private Long registrationNumber;
+
+    /** Page status seen by the probe (READY, NAME_EMPTY, UNKNOWN, ...). */
+    private String probeStatus;
+
+    private LocalDateTime discoveredAt;
+
+    public DiscoveredRegistration(String linkKey, Long prefix, Long registrationNumber, String probeStatus) {
+        this.linkKey = linkKey;
+        this.prefix = prefix;
+        this.registrationNumber = registrationNumber;
+        this.probeStatus = probeStatus;
+        this.discoveredAt = LocalDateTime.now();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String linkKey;
+        private Long prefix;
+        private Long registrationNumber;
+    }
+}
@@ -0,0 +1,84 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent checkpoint of one ingestion run.
+ * Survives restarts so an interrupted range can be resumed instead of re-guessed.
+ */
+@Entity
+@Table(name = "ingestion_jobs")
+@Data
+@NoArgsConstructor
+public class IngestionJob {
+
+    /**
+     * Persisted lifecycle, kept deliberately coarse: RUNNING covers queued and paused jobs
+     * (anything to resume after a restart), FAILED covers cancelled ones. The column carries a
+     * CHECK constraint generated from this enum, so new values would need a table rebuild.
+     */
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Link key from result_links, or a raw URL template. */
+    @Column(nullable = false, length = 2048)
+    private String linkKey;
+
+    private Long rangeStart;
+    private Long rangeEnd;
+
+    /**
+     * Highest registration number below which every record has a committed outcome.
+     * Workers finish out of order, so this trails the furthest record processed.
+     */
+    private Long lastCompletedReg;
+
+    @Enumerated(EnumType.STRING)
+    private State state;
+
+    /** Scheduling priority; higher runs first. */
+    private Integer priority;
+
+    /** Incremental re-sync: skip registrations already synced for this link. Null on older rows means full. */
+    private Boolean incremental;
+
+    /** With incremental, also re-fetch registrations that previously returned NO_RECORD. */
+    private Boolean recheckNoRecord;
+
+    /** Only fetch registrations found by discovery inside probed blocks; unprobed blocks are fetched in full. */
+    private Boolean discoveredOnly;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public IngestionJob(String linkKey, Long rangeStart, Long rangeEnd, boolean incremental, boolean recheckNoRecord) {
+        this.linkKey = linkKey;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.incremental = incremental;
+        this.recheckNoRecord = recheckNoRecord;
+        this.lastCompletedReg = rangeStart - 1;
+        this.state = State.RUNNING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isIncrementalSync() {
+        return Boolean.TRUE.equals(incremental);
+    }
+
+    public boolean isRecheckingNoRecord() {
+        return Boolean.TRUE.equals(recheckNoRecord);
+    }
+
+    public boolean isRestrictedToDiscovered() {
+        return Boolean.TRUE.equals(discoveredOnly);
+    }
+}
@@ -0,0 +1,49 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Per-record outcome of an ingestion job (READY, NO_RECORD, ERROR, ...).
+ * A resumed job skips registrations whose outcome is already terminal.
+ * Keyed on (job, registration) rather than a generated id so inserts stay JDBC-batchable.
+ */
+@Entity
+@Table(name = "ingestion_record_outcomes")
+@IdClass(IngestionRecordOutcome.Key.class)
+@Data
+@NoArgsConstructor
+public class IngestionRecordOutcome {
+
+    @Id
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Id
+    @Column(name = "registration_number")
+    private Long registrationNumber;
+
+    private String outcome;
+
+    private LocalDateTime recordedAt;
+
+    public IngestionRecordOutcome(Long jobId, Long registrationNumber, String outcome) {
+        this.jobId = jobId;
+        this.registrationNumber = registrationNumber;
+        this.outcome = outcome;
+        this.recordedAt = LocalDateTime.now();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long jobId;
+        private Long registrationNumber;
+    }
+}
@@ -0,0 +1,53 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Probe summary of one college/branch block of registration numbers.
+ * The prefix is the registration number without its 3-digit serial (YY + branch + college),
+ * e.g. 22105123 for 22105123001-22105123999.
+ * Blocks are kept per link: a semester's result link only lists the students who sat that
+ * exam, so lateral-entry serials missing from the 1st semester can still exist in later ones.
+ */
+@Entity
+@Table(name = "registration_blocks")
+@IdClass(RegistrationBlock.Key.class)
+@Data
+@NoArgsConstructor
+public class RegistrationBlock {
+
+    /** Link (or URL template) the block was probed against. */
+    @Id
+    @Column(name = "link_key", length = 2048)
+    private String linkKey;
+
+    @Id
+    private Long prefix;
+
+    /** Serial range that was probed; registrations outside it are treated as unknown. */
+    private Long probedFrom;
+    private Long probedTo;
+
+    private Integer hitCount;
+
+    private LocalDateTime probedAt;
+
+    public RegistrationBlock(String linkKey, Long prefix) {
+        this.linkKey = linkKey;
+        this.prefix = prefix;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String linkKey;
+        private Long prefix;
+    }
+}
@@ -5,8 +5,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+/**
+ * SGPA per semester and CGPA as numbers; null where the portal shows "NA" or nothing.
+ * Stored as REAL so SQLite can sort, compare and index them (see {@code GradeSchemaMigration}).
+ */
 @Entity
-@Table(name = "student_grades") // Ensure NO schema="public" here
+@Table(name = "student_grades", // Ensure NO schema="public" here
+        indexes = @Index(name = "idx_student_grades_cgpa", columnList = "cgpa"))
 @Data
 @NoArgsConstructor
 public class StudentGrade {
@@ -28,17 +33,17 @@ public class StudentGrade {
     @PrimaryKeyJoinColumn
     private StudentBacklog backlog;
 
-    private String sem1;
-    private String sem2;
-    private String sem3;
-    private String sem4;
-    private String sem5;
-    private String sem6;
-    private String sem7;
-    private String sem8;
-    private String cgpa;
+    private Double sem1;
+    private Double sem2;
+    private Double sem3;
+    private Double sem4;
+    private Double sem5;
+    private Double sem6;
+    private Double sem7;
+    private Double sem8;
+    private Double cgpa;
 
-    public String getSem(int semester) {
+    public Double getSem(int semester) {
         switch (semester) {
             case 1: return sem1; case 2: return sem2; case 3: return sem3;
             case 4: return sem4; case 5: return sem5; case 6: return sem6;
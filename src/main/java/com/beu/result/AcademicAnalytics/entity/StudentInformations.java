@@ -11,7 +11,12 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 // Ensure NO schema="public" is present here
-@Table(name = "student_informations")
+@Table(name = "student_informations",
+        indexes = {
+                @Index(name = "idx_student_informations_cohort", columnList = "batch_year, branch_code"),
+                @Index(name = "idx_student_informations_branch_code", columnList = "branch_code"),
+                @Index(name = "idx_student_informations_college", columnList = "college_code, batch_year")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,6 +31,14 @@ public class StudentInformations {
     private String course;
     private String branch;
 
+    /**
+     * Segments of the registration number (YY BBB CCC SSS: batch year, branch code, college code,
+     * serial), stored so cohort filters are indexed equality lookups. Set on insert.
+     */
+    private Integer batchYear;
+    private Integer branchCode;
+    private Integer collegeCode;
+
     /**
      * Link to StudentGrade.
      * In SQLite, this One-to-One relationship will be managed by Hibernate
@@ -45,4 +58,24 @@ public class StudentInformations {
         this.course = course;
         this.branch = branch;
     }
+
+    @PrePersist
+    void deriveRegistrationSegments() {
+        if (registrationNumber == null) return;
+        batchYear = batchYearOf(registrationNumber);
+        branchCode = branchCodeOf(registrationNumber);
+        collegeCode = collegeCodeOf(registrationNumber);
+    }
+
+    public static int batchYearOf(long registrationNumber) {
+        return (int) (registrationNumber / 1_000_000_000L);
+    }
+
+    public static int branchCodeOf(long registrationNumber) {
+        return (int) (registrationNumber / 1_000_000L % 1000);
+    }
+
+    public static int collegeCodeOf(long registrationNumber) {
+        return (int) (registrationNumber / 1000L % 1000);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.beu.result.AcademicAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Last known result of a registration number on one result link.
+ * Incremental re-syncs skip registrations synced recently whose data is already stored (content
+ * hash present) or that returned NO_RECORD, and the writer skips unchanged pages by comparing hashes.
+ */
+@Entity
+@Table(name = "student_sync_state")
+@IdClass(StudentSyncState.Key.class)
+@Data
+@NoArgsConstructor
+public class StudentSyncState {
+
+    @Id
+    @Column(name = "link_key", length = 2048)
+    private String linkKey;
+
+    @Id
+    @Column(name = "registration_number")
+    private Long registrationNumber;
+
+    /** SHA-256 of the extracted data; null unless the last outcome was READY. */
+    @Column(length = 64)
+    private String contentHash;
+
+    private String outcome;
+
+    private LocalDateTime syncedAt;
+
+    public StudentSyncState(String linkKey, Long registrationNumber) {
+        this.linkKey = linkKey;
+        this.registrationNumber = registrationNumber;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String linkKey;
+        private Long registrationNumber;
+    }
+}
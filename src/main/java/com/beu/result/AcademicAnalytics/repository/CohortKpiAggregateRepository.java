@@ -0,0 +1,25 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.CohortKpiAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the per-cohort dashboard aggregates.
+ */
+@Repository
+public interface CohortKpiAggregateRepository extends JpaRepository<CohortKpiAggregate, CohortKpiAggregate.Key> {
+
+    /** Cohorts matching the dashboard filters (null means all); the table holds a few dozen rows. */
+    @Query("""
+            SELECT a FROM CohortKpiAggregate a
+            WHERE (:batchYear IS NULL OR a.batchYear = :batchYear)
+            AND (:branchCode IS NULL OR a.branchCode = :branchCode)
+            AND (:collegeCode IS NULL OR a.collegeCode = :collegeCode)""")
+    List<CohortKpiAggregate> findMatching(@Param("batchYear") Integer batchYear, @Param("branchCode") Integer branchCode,
+                                          @Param("collegeCode") Integer collegeCode);
+}
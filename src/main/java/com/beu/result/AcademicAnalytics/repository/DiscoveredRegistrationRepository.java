@@ -0,0 +1,31 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.DiscoveredRegistration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for registrations found by discovery probes.
+ */
+@Repository
+public interface DiscoveredRegistrationRepository extends JpaRepository<DiscoveredRegistration, DiscoveredRegistration.Key> {
+
+    @Query("""
+            SELECT d.registrationNumber FROM DiscoveredRegistration d
+            WHERE d.linkKey = :linkKey AND d.registrationNumber BETWEEN :startReg AND :endReg""")
+    List<Long> findRegistrationsBetween(@Param("linkKey") String linkKey, @Param("startReg") long startReg, @Param("endReg") long endReg);
+
+    long countByLinkKeyAndPrefix(String linkKey, Long prefix);
+
+    @Modifying
+    @Query("""
+            DELETE FROM DiscoveredRegistration d
+            WHERE d.linkKey = :linkKey AND d.prefix = :prefix AND d.registrationNumber BETWEEN :startReg AND :endReg""")
+    int deleteProbedRange(@Param("linkKey") String linkKey, @Param("prefix") Long prefix,
+                          @Param("startReg") long startReg, @Param("endReg") long endReg);
+}
@@ -0,0 +1,7 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+/**
+ * Number of students in one (batch year, branch code, college code) cell, with one stored
+ * branch name for the code. The dropdown facets are sums over these cells.
+ */
+public record FacetCell(Integer batchYear, Integer branchCode, Integer collegeCode, String branchName, long count) {}
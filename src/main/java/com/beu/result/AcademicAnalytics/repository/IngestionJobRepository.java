@@ -0,0 +1,27 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for persisted ingestion job checkpoints.
+ */
+@Repository
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, Long> {
+
+    List<IngestionJob> findByStateOrderByIdAsc(IngestionJob.State state);
+
+    /** Column-level update, so it never overwrites the watermark maintained by the record writer. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IngestionJob j SET j.state = :state, j.updatedAt = :now WHERE j.id = :jobId")
+    int updateState(@Param("jobId") Long jobId, @Param("state") IngestionJob.State state, @Param("now") LocalDateTime now);
+}
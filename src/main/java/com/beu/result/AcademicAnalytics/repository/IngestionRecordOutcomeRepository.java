@@ -0,0 +1,21 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionRecordOutcome;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for per-record ingestion outcomes.
+ */
+@Repository
+public interface IngestionRecordOutcomeRepository extends JpaRepository<IngestionRecordOutcome, IngestionRecordOutcome.Key> {
+
+    @Query("SELECT o.registrationNumber FROM IngestionRecordOutcome o WHERE o.jobId = :jobId AND o.outcome IN :outcomes")
+    List<Long> findRegistrationsWithOutcome(@Param("jobId") Long jobId,
+                                            @Param("outcomes") Collection<String> outcomes);
+}
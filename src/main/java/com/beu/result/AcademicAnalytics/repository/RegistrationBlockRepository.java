@@ -0,0 +1,16 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.RegistrationBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for probed registration blocks.
+ */
+@Repository
+public interface RegistrationBlockRepository extends JpaRepository<RegistrationBlock, RegistrationBlock.Key> {
+
+    List<RegistrationBlock> findByLinkKeyAndPrefixBetweenOrderByPrefixAsc(String linkKey, Long fromPrefix, Long toPrefix);
+}
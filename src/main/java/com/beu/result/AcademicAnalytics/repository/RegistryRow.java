@@ -0,0 +1,13 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+/**
+ * One registry line as plain values, for exports that must not load entities.
+ * {@code sgpa} and {@code remarks} are indexed by semester - 1; {@code graded} and
+ * {@code hasBacklog} tell whether the grade and backlog rows exist at all.
+ */
+public record RegistryRow(long registrationNumber, String studentName, String branch,
+                          boolean graded, Double[] sgpa, Double cgpa,
+                          boolean hasBacklog, String[] remarks) {
+
+    public static final int SEMESTERS = 8;
+}
@@ -0,0 +1,29 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+/**
+ * Registry filters. Every field is optional (null means "all"); {@code name} is matched as a
+ * lower-case substring of the student's name.
+ */
+public record StudentFilter(Integer batchYear, Integer branchCode, Integer collegeCode, String name) {
+
+    /** Builds the filter from request parameters, where blanks and "All" mean no filter. */
+    public static StudentFilter of(String year, String branch, String college, String name) {
+        String nameParam = (name != null && !name.trim().isEmpty()) ? name.trim().toLowerCase() : null;
+        return new StudentFilter(parseBatchYear(year), parseCode(branch), parseCode(college), nameParam);
+    }
+
+    /** Two-digit batch year of "2022" or "22"; null for "All", blanks and anything unparseable. */
+    public static Integer parseBatchYear(String year) {
+        Integer value = parseCode(year);
+        return value != null ? value % 100 : null;
+    }
+
+    public static Integer parseCode(String value) {
+        if (value == null || value.trim().isEmpty() || value.equals("All")) return null;
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -9,37 +9,23 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface StudentInfoRepository extends JpaRepository<StudentInformations, Long> {
+public interface StudentInfoRepository extends JpaRepository<StudentInformations, Long>, StudentRegistryQueries {
 
-    @Query("SELECT DISTINCT s.branch FROM StudentInformations s WHERE s.branch IS NOT NULL ORDER BY s.branch")
-    List<String> findDistinctBranches();
+    /** Students of a registration range with grade and backlog rows fetched in the same query. */
+    @Query("""
+            SELECT s FROM StudentInformations s
+            LEFT JOIN FETCH s.grade g
+            LEFT JOIN FETCH g.backlog
+            WHERE s.registrationNumber BETWEEN :startReg AND :endReg
+            ORDER BY s.registrationNumber""")
+    List<StudentInformations> findWithResultsBetween(@Param("startReg") Long startReg, @Param("endReg") Long endReg);
 
-    /**
-     * Updated for SQLite:
-     * 1. Removed 'public.' prefix.
-     * 2. Switched 'SUBSTRING' to 'substr'.
-     * 3. Casting to TEXT is simplified.
-     */
-    @Query(value = """
-            SELECT DISTINCT substr(CAST(registration_number AS TEXT), 1, 2) AS batch_year 
-            FROM student_informations 
-            ORDER BY batch_year
-            """, nativeQuery = true)
-    List<String> findDistinctBatchYears();
-
-    /**
-     * Updated for SQLite:
-     * 1. Removed 'public.' prefix.
-     * 2. Used the '||' operator for string concatenation (SQLite standard).
-     * 3. Simplified NULL handling.
-     */
-    @Query(value = """
-        SELECT * FROM student_informations s 
-        WHERE (CAST(s.registration_number AS TEXT) LIKE (:yearPattern || '%') OR :yearPattern IS NULL)
-        AND (LOWER(s.branch) LIKE LOWER('%' || :branch || '%') OR :branch IS NULL)
-        """, nativeQuery = true)
-    List<StudentInformations> searchByYearAndBranch(
-            @Param("yearPattern") String yearPattern,
-            @Param("branch") String branch
-    );
-}
\ No newline at end of file
+    /** Student counts per batch year, branch and college, read once per facet cache refresh. */
+    @Query("""
+            SELECT new com.beu.result.AcademicAnalytics.repository.FacetCell(
+                s.batchYear, s.branchCode, s.collegeCode, MIN(s.branch), COUNT(s))
+            FROM StudentInformations s
+            WHERE s.batchYear IS NOT NULL
+            GROUP BY s.batchYear, s.branchCode, s.collegeCode""")
+    List<FacetCell> countFacetCells();
+}
@@ -0,0 +1,27 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.stream.Stream;
+
+/**
+ * Registry queries whose WHERE clause depends on which filters are set.
+ */
+public interface StudentRegistryQueries {
+
+    /**
+     * One registry page, in registration order or ranked by CGPA (highest first; SQLite sorts
+     * NULLs last in a descending order, so students without a CGPA come after everyone ranked).
+     * {@code knownTotal} is the number of matching students when the caller already knows it;
+     * null runs a COUNT query.
+     */
+    Page<StudentInformations> findRegistryPage(StudentFilter filter, boolean ranked, Pageable pageable, Long knownTotal);
+
+    /**
+     * Every matching row, in the same order as {@link #findRegistryPage}, fetched lazily
+     * {@code chunkSize} rows per query. Only the current chunk is held in memory.
+     */
+    Stream<RegistryRow> streamRegistry(StudentFilter filter, boolean ranked, int chunkSize);
+}
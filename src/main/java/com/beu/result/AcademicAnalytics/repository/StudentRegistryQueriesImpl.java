@@ -0,0 +1,204 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds the registry query from the filters that are actually set.
+ * <p>
+ * The usual {@code (:x IS NULL OR s.x = :x)} form would keep one static query, but SQLite
+ * cannot use an index for an OR with a parameter-only term and scans the whole table instead.
+ * Only set filters become conditions here, so batch year, branch and college filters are
+ * equality lookups on the {@code student_informations} indexes.
+ * </p>
+ */
+class StudentRegistryQueriesImpl implements StudentRegistryQueries {
+
+    /** Grade and backlog rows come in the same query, so rendering a row never loads them one by one. */
+    private static final String REGISTRY_SELECT = """
+            SELECT s FROM StudentInformations s
+            LEFT JOIN FETCH s.grade g
+            LEFT JOIN FETCH g.backlog
+            """;
+
+    private static final String REGISTRY_COUNT = "SELECT COUNT(s) FROM StudentInformations s ";
+
+    /** Plain columns for exports: no entities, so nothing accumulates in the persistence context. */
+    private static final String ROW_SELECT = """
+            SELECT s.registrationNumber, s.studentName, s.branch, g.id,
+                   g.sem1, g.sem2, g.sem3, g.sem4, g.sem5, g.sem6, g.sem7, g.sem8, g.cgpa,
+                   b.id, b.sem1, b.sem2, b.sem3, b.sem4, b.sem5, b.sem6, b.sem7, b.sem8
+            FROM StudentInformations s
+            LEFT JOIN s.grade g
+            LEFT JOIN g.backlog b
+            """;
+
+    private static final String ORDER_REGISTRATION = " ORDER BY s.registrationNumber";
+    private static final String ORDER_RANKED = " ORDER BY g.cgpa DESC, s.registrationNumber";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<StudentInformations> findRegistryPage(StudentFilter filter, boolean ranked, Pageable pageable, Long knownTotal) {
+        Map<String, Object> params = new HashMap<>();
+        String where = where(filterConditions(filter, params));
+
+        TypedQuery<StudentInformations> query = entityManager.createQuery(
+                REGISTRY_SELECT + where + (ranked ? ORDER_RANKED : ORDER_REGISTRATION), StudentInformations.class);
+        params.forEach(query::setParameter);
+        if (pageable.isUnpaged()) return new PageImpl<>(query.getResultList());
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> {
+            if (knownTotal != null) return knownTotal;
+            TypedQuery<Long> count = entityManager.createQuery(REGISTRY_COUNT + where, Long.class);
+            params.forEach(count::setParameter);
+            return count.getSingleResult();
+        });
+    }
+
+    @Override
+    public Stream<RegistryRow> streamRegistry(StudentFilter filter, boolean ranked, int chunkSize) {
+        Iterator<RegistryRow> cursor = new KeysetCursor(filter, ranked, Math.max(1, chunkSize));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Walks the registry in chunks, each query resuming after the last row of the previous one
+     * (keyset paging), so no statement stays open between chunks and SQLite's read lock is
+     * never held across a whole export while the ingestion writer waits.
+     * <p>
+     * Registration order resumes on the registration number. Ranked order runs in two phases:
+     * students with a CGPA by (CGPA descending, registration number), which can range-scan the
+     * CGPA index, then the rest by registration number, which is where SQLite's descending
+     * sort puts NULLs anyway.
+     * </p>
+     */
+    private final class KeysetCursor implements Iterator<RegistryRow> {
+
+        private final StudentFilter filter;
+        private final boolean ranked;
+        private final int chunkSize;
+        private final ArrayDeque<RegistryRow> buffer = new ArrayDeque<>();
+
+        private boolean gradedPhase;
+        private boolean exhausted = false;
+        private RegistryRow resumeAfter;
+
+        KeysetCursor(StudentFilter filter, boolean ranked, int chunkSize) {
+            this.filter = filter;
+            this.ranked = ranked;
+            this.chunkSize = chunkSize;
+            this.gradedPhase = ranked;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && !exhausted) fetchChunk();
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public RegistryRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return buffer.poll();
+        }
+
+        private void fetchChunk() {
+            Map<String, Object> params = new HashMap<>();
+            List<String> conditions = filterConditions(filter, params);
+            if (gradedPhase) {
+                conditions.add("g.cgpa IS NOT NULL");
+                if (resumeAfter != null) {
+                    conditions.add("g.cgpa <= :afterCgpa AND (g.cgpa < :afterCgpa OR s.registrationNumber > :afterReg)");
+                    params.put("afterCgpa", resumeAfter.cgpa());
+                    params.put("afterReg", resumeAfter.registrationNumber());
+                }
+            } else {
+                if (ranked) conditions.add("g.cgpa IS NULL");
+                if (resumeAfter != null) {
+                    conditions.add("s.registrationNumber > :afterReg");
+                    params.put("afterReg", resumeAfter.registrationNumber());
+                }
+            }
+
+            TypedQuery<Object[]> query = entityManager.createQuery(
+                    ROW_SELECT + where(conditions) + (gradedPhase ? ORDER_RANKED : ORDER_REGISTRATION), Object[].class);
+            params.forEach(query::setParameter);
+            query.setMaxResults(chunkSize);
+            List<Object[]> rows = query.getResultList();
+
+            for (Object[] row : rows) buffer.add(toRow(row));
+            resumeAfter = buffer.peekLast();
+            if (rows.size() < chunkSize) {
+                if (gradedPhase) {
+                    gradedPhase = false;
+                    resumeAfter = null;
+                } else {
+                    exhausted = true;
+                }
+            }
+        }
+    }
+
+    private static RegistryRow toRow(Object[] row) {
+        Double[] sgpa = new Double[RegistryRow.SEMESTERS];
+        String[] remarks = new String[RegistryRow.SEMESTERS];
+        for (int i = 0; i < RegistryRow.SEMESTERS; i++) {
+            sgpa[i] = (Double) row[4 + i];
+            remarks[i] = (String) row[14 + i];
+        }
+        return new RegistryRow((Long) row[0], (String) row[1], (String) row[2],
+                row[3] != null, sgpa, (Double) row[12], row[13] != null, remarks);
+    }
+
+    private static List<String> filterConditions(StudentFilter filter, Map<String, Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.batchYear() != null) {
+            conditions.add("s.batchYear = :batchYear");
+            params.put("batchYear", filter.batchYear());
+        }
+        if (filter.branchCode() != null) {
+            conditions.add("s.branchCode = :branchCode");
+            params.put("branchCode", filter.branchCode());
+        }
+        if (filter.collegeCode() != null) {
+            conditions.add("s.collegeCode = :collegeCode");
+            params.put("collegeCode", filter.collegeCode());
+        }
+        if (filter.name() != null) {
+            conditions.add("LOWER(s.studentName) LIKE CONCAT('%', :name, '%') ESCAPE '\\'");
+            params.put("name", escapeLike(filter.name()));
+        }
+        return conditions;
+    }
+
+    /** Makes LIKE wildcards in a search term literal, so "%" and "_" match only themselves. */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,36 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.StudentSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for per-link sync state used by incremental re-syncs.
+ */
+@Repository
+public interface StudentSyncStateRepository extends JpaRepository<StudentSyncState, StudentSyncState.Key> {
+
+    /**
+     * Registrations in the range that an incremental run can skip: READY pages synced since
+     * {@code syncedSince} whose grade row still exists, plus NO_RECORD numbers synced since then
+     * when {@code skipNoRecord} is set.
+     */
+    @Query("""
+            SELECT s.registrationNumber FROM StudentSyncState s
+            WHERE s.linkKey = :linkKey
+              AND s.registrationNumber BETWEEN :startReg AND :endReg
+              AND s.syncedAt >= :syncedSince
+              AND ((s.outcome = 'READY' AND s.contentHash IS NOT NULL
+                    AND EXISTS (SELECT g.id FROM StudentGrade g WHERE g.id = s.registrationNumber))
+                   OR (s.outcome = 'NO_RECORD' AND :skipNoRecord = TRUE))""")
+    List<Long> findSkippableRegistrations(@Param("linkKey") String linkKey,
+                                         @Param("startReg") long startReg,
+                                         @Param("endReg") long endReg,
+                                         @Param("skipNoRecord") boolean skipNoRecord,
+                                         @Param("syncedSince") LocalDateTime syncedSince);
+}
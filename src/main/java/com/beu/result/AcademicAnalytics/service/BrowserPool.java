@@ -0,0 +1,233 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.microsoft.playwright.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared pool of headless Chromium instances for the ingestion and archival engines.
+ * <p>
+ * Callers lease an isolated {@link BrowserContext} on a pooled browser and return it by
+ * closing the {@link Lease}. At most {@code browser.pool.size} browsers exist at once, so
+ * overlapping jobs queue for a browser instead of spawning more Chromium processes.
+ * Browsers are health-checked on every hand-out and recycled after
+ * {@code browser.pool.max-pages-per-browser} page loads to contain renderer memory growth.
+ * </p>
+ * <p>
+ * Playwright objects are not thread-safe; a browser is only ever used by the thread
+ * holding its lease, and the pool hands it over through a blocking deque.
+ * </p>
+ */
+@Component
+public class BrowserPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BrowserPool.class);
+
+    /** One Playwright driver plus its Chromium process. */
+    private static final class PooledBrowser {
+        final Playwright playwright;
+        final Browser browser;
+        int pagesServed = 0;
+
+        PooledBrowser(Playwright playwright, Browser browser) {
+            this.playwright = playwright;
+            this.browser = browser;
+        }
+
+        boolean isHealthy() {
+            try {
+                return browser.isConnected();
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        void destroy() {
+            try {
+                playwright.close(); // also closes the browser and its contexts
+            } catch (Exception e) {
+                LOG.debug("Browser shutdown failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private final BlockingDeque<PooledBrowser> idle = new LinkedBlockingDeque<>();
+    private final Semaphore leasePermits;
+    private final int maxPagesPerBrowser;
+    private final int prewarmCount;
+    private volatile boolean closed = false;
+
+    public BrowserPool(@Value("${browser.pool.size:4}") int poolSize,
+                       @Value("${browser.pool.max-pages-per-browser:200}") int maxPagesPerBrowser,
+                       @Value("${browser.pool.prewarm-count:1}") int prewarmCount) {
+        this.leasePermits = new Semaphore(Math.max(1, poolSize), true);
+        this.maxPagesPerBrowser = Math.max(1, maxPagesPerBrowser);
+        this.prewarmCount = Math.min(Math.max(0, prewarmCount), Math.max(1, poolSize));
+    }
+
+    // ==========================================
+    // LIFECYCLE
+    // ==========================================
+
+    /**
+     * Launches the first browsers in the background once the application is up,
+     * so the first job does not pay Chromium's cold-start cost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (prewarmCount == 0) return;
+        Thread warmer = new Thread(() -> {
+            for (int i = 0; i < prewarmCount && !closed; i++) {
+                try {
+                    idle.offerLast(launch());
+                } catch (Exception e) {
+                    LOG.warn("Browser pre-warm failed: {}", e.getMessage());
+                    return;
+                }
+            }
+            LOG.info("Browser pool pre-warmed with {} instance(s)", idle.size());
+        }, "browser-pool-warmer");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        PooledBrowser pooled;
+        while ((pooled = idle.pollFirst()) != null) pooled.destroy();
+    }
+
+    // ==========================================
+    // LEASING
+    // ==========================================
+
+    /**
+     * Leases a fresh browser context with the given viewport.
+     * Blocks while every pooled browser is in use.
+     */
+    public Lease acquire(int viewportWidth, int viewportHeight) throws InterruptedException {
+        if (closed) throw new PlaywrightException("Browser pool is shut down");
+        leasePermits.acquire();
+
+        PooledBrowser pooled = null;
+        try {
+            // Health check: discard idle browsers that died while parked
+            while ((pooled = idle.pollFirst()) != null && !pooled.isHealthy()) {
+                LOG.warn("Discarding disconnected pooled browser");
+                pooled.destroy();
+            }
+            if (pooled == null) pooled = launch();
+
+            BrowserContext context = pooled.browser.newContext(
+                    new Browser.NewContextOptions().setViewportSize(viewportWidth, viewportHeight));
+            return new Lease(pooled, context);
+        } catch (RuntimeException e) {
+            if (pooled != null) pooled.destroy();
+            leasePermits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledBrowser pooled) {
+        try {
+            if (closed || !pooled.isHealthy() || pooled.pagesServed >= maxPagesPerBrowser) {
+                if (pooled.pagesServed >= maxPagesPerBrowser) {
+                    LOG.info("Recycling browser after {} pages", pooled.pagesServed);
+                }
+                pooled.destroy();
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            leasePermits.release();
+        }
+    }
+
+    private PooledBrowser launch() {
+        Playwright playwright = Playwright.create();
+        try {
+            return new PooledBrowser(playwright, playwright.chromium().launch(buildLaunchOptions()));
+        } catch (RuntimeException e) {
+            playwright.close();
+            throw e;
+        }
+    }
+
+    private BrowserType.LaunchOptions buildLaunchOptions() {
+        // 1. Setup Linux-Specific Pathing
+        String appPath = System.getProperty("user.dir");
+        Path bundledPath = Paths.get(appPath, "browsers", "linux", "chrome-linux", "chrome");
+
+        // 2. Configure Essential Linux Flags
+        // These flags prevent the SIGTRAP crash on Ubuntu/Debian
+        BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
+                .setHeadless(true)
+                .setArgs(Arrays.asList(
+                        "--no-sandbox",              // Required for /opt/ or root execution
+                        "--disable-setuid-sandbox",  // Prevents fatal SIGTRAP errors
+                        "--disable-dev-shm-usage",   // Prevents memory crashes
+                        "--disable-gpu"              // Optimizes resource usage
+                ));
+
+        // 3. Tiered Browser Resolution (Bundled -> System -> Download)
+        if (Files.exists(bundledPath)) {
+            launchOptions.setExecutablePath(bundledPath);
+            LOG.info("Browser Pool: Using bundled browser at {}", bundledPath);
+        } else {
+            LOG.warn("Bundled browser NOT found at {}. Attempting system default/download.", bundledPath);
+        }
+        return launchOptions;
+    }
+
+    /**
+     * Exclusive use of one pooled browser through a private context.
+     * Closing the lease closes the context and returns the browser to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledBrowser pooled;
+        private final BrowserContext context;
+        private boolean released = false;
+
+        private Lease(PooledBrowser pooled, BrowserContext context) {
+            this.pooled = pooled;
+            this.context = context;
+        }
+
+        public BrowserContext context() { return context; }
+
+        /** Records one page load against the browser's recycle budget. */
+        public void pageServed() { pooled.pagesServed++; }
+
+        /** True while the underlying browser is still connected. */
+        public boolean isHealthy() { return pooled.isHealthy(); }
+
+        /** True once the browser has served its page budget and should be handed back. */
+        public boolean isExhausted() { return pooled.pagesServed >= maxPagesPerBrowser; }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            try {
+                context.close();
+            } catch (Exception e) {
+                LOG.debug("Context close failed: {}", e.getMessage());
+            }
+            release(pooled);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.CohortKpiAggregate;
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.beu.result.AcademicAnalytics.repository.CohortKpiAggregateRepository;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Maintains {@link CohortKpiAggregate} rows so the dashboard reads a few dozen cohort rows
+ * instead of every student.
+ * <p>
+ * {@link StudentRecordWriter} hands over each batch's before/after {@link Contribution}s and the
+ * differences are applied in the writer's own transaction, so the totals commit (or roll back)
+ * together with the student rows. {@link #rebuild()} recomputes everything from the student
+ * tables in one statement; it runs at startup when the table is empty and on demand after
+ * the database was changed outside the application.
+ * </p>
+ */
+@Service
+public class CohortKpiService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CohortKpiService.class);
+
+    public static final double PASS_CGPA = 5.0;
+
+    /** What one student adds to its cohort's totals. */
+    public record Contribution(int batchYear, int branchCode, int collegeCode, boolean graded, double cgpa) {
+
+        public static Contribution of(StudentInformations profile, StudentGrade grade) {
+            if (profile == null) return null;
+            long regNo = profile.getRegistrationNumber();
+            boolean graded = grade != null && grade.getCgpa() != null;
+            return new Contribution(StudentInformations.batchYearOf(regNo), StudentInformations.branchCodeOf(regNo),
+                    StudentInformations.collegeCodeOf(regNo), graded, graded ? grade.getCgpa() : 0.0);
+        }
+
+        CohortKpiAggregate.Key key() {
+            return new CohortKpiAggregate.Key(batchYear, branchCode, collegeCode);
+        }
+    }
+
+    /** Same arithmetic as {@link #applyTo}, over the whole student table (a NULL CGPA fails every comparison). */
+    private static final String REBUILD_SQL = """
+            INSERT INTO cohort_kpi_aggregates
+                (batch_year, branch_code, college_code, student_count, graded_count, pass_count, cgpa_sum,
+                 bucket0, bucket1, bucket2, bucket3, bucket4)
+            SELECT s.batch_year,
+                   s.branch_code,
+                   s.college_code,
+                   COUNT(*),
+                   COUNT(g.cgpa),
+                   SUM(CASE WHEN g.cgpa >= 5.0 THEN 1 ELSE 0 END),
+                   COALESCE(SUM(g.cgpa), 0),
+                   SUM(CASE WHEN g.cgpa < 6.0 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN g.cgpa >= 6.0 AND g.cgpa < 7.0 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN g.cgpa >= 7.0 AND g.cgpa < 8.0 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN g.cgpa >= 8.0 AND g.cgpa < 9.0 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN g.cgpa >= 9.0 THEN 1 ELSE 0 END)
+            FROM student_informations s
+            LEFT JOIN student_grades g ON g.registration_number = s.registration_number
+            GROUP BY s.batch_year, s.branch_code, s.college_code
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CohortKpiAggregateRepository aggregateRepository;
+    private final StudentInfoRepository studentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CohortKpiService(CohortKpiAggregateRepository aggregateRepository,
+                            StudentInfoRepository studentRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.aggregateRepository = aggregateRepository;
+        this.studentRepository = studentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==========================================
+    // READ MODEL
+    // ==========================================
+
+    public List<CohortKpiAggregate> findMatching(Integer batchYear, Integer branchCode, Integer collegeCode) {
+        return aggregateRepository.findMatching(batchYear, branchCode, collegeCode);
+    }
+
+    // ==========================================
+    // INCREMENTAL MAINTENANCE
+    // ==========================================
+
+    /**
+     * Moves each student's contribution from {@code before} to {@code after} (either may be
+     * missing). Must be called inside the transaction that writes the student rows.
+     */
+    public void applyChanges(Map<Long, Contribution> before, Map<Long, Contribution> after) {
+        Set<Long> students = new HashSet<>(before.keySet());
+        students.addAll(after.keySet());
+
+        Map<CohortKpiAggregate.Key, CohortKpiAggregate> touched = new HashMap<>();
+        for (Long regNo : students) {
+            Contribution old = before.get(regNo);
+            Contribution now = after.get(regNo);
+            if (Objects.equals(old, now)) continue;
+            if (old != null) applyTo(cohort(touched, old.key()), old, -1);
+            if (now != null) applyTo(cohort(touched, now.key()), now, 1);
+        }
+
+        // A cohort left without students disappears rather than showing as an empty row
+        touched.values().stream().filter(CohortKpiAggregate::isEmpty).forEach(entityManager::remove);
+    }
+
+    private CohortKpiAggregate cohort(Map<CohortKpiAggregate.Key, CohortKpiAggregate> touched, CohortKpiAggregate.Key key) {
+        return touched.computeIfAbsent(key, k -> {
+            CohortKpiAggregate row = entityManager.find(CohortKpiAggregate.class, k);
+            if (row == null) {
+                row = new CohortKpiAggregate(k.getBatchYear(), k.getBranchCode(), k.getCollegeCode());
+                entityManager.persist(row);
+            }
+            return row;
+        });
+    }
+
+    private static void applyTo(CohortKpiAggregate row, Contribution c, int sign) {
+        row.setStudentCount(row.getStudentCount() + sign);
+        if (!c.graded()) return;
+        row.setGradedCount(row.getGradedCount() + sign);
+        row.setCgpaSum(row.getCgpaSum() + sign * c.cgpa());
+        if (c.cgpa() >= PASS_CGPA) row.setPassCount(row.getPassCount() + sign);
+        row.addToBucket(bucketOf(c.cgpa()), sign);
+    }
+
+    // ==========================================
+    // REBUILD
+    // ==========================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (aggregateRepository.count() == 0 && studentRepository.count() > 0) {
+            LOG.info("Dashboard aggregates missing, building them from the student tables");
+            rebuild();
+        }
+    }
+
+    /** Recomputes every cohort from the student tables. Returns the number of cohorts. */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        Integer cohorts = transactionTemplate.execute(status -> {
+            entityManager.createNativeQuery("DELETE FROM cohort_kpi_aggregates").executeUpdate();
+            return entityManager.createNativeQuery(REBUILD_SQL).executeUpdate();
+        });
+        LOG.info("Rebuilt dashboard aggregates: {} cohorts in {}ms", cohorts, System.currentTimeMillis() - start);
+        return cohorts != null ? cohorts : 0;
+    }
+
+    // ==========================================
+    // HELPERS
+    // ==========================================
+
+    /** Histogram bucket of a CGPA: below 6, 6-7, 7-8, 8-9, 9 and up. */
+    public static int bucketOf(double cgpa) {
+        if (cgpa >= 9.0) return 4;
+        if (cgpa >= 8.0) return 3;
+        if (cgpa >= 7.0) return 2;
+        if (cgpa >= 6.0) return 1;
+        return 0;
+    }
+}
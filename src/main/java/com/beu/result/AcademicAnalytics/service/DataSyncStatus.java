@@ -1,40 +1,113 @@
 package com.beu.result.AcademicAnalytics.service; // <--- CHANGED TO MATCH FOLDER
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Aggregate telemetry across every queued and running job (polled by the dashboard).
+ * Counters accumulate while any job is queued or running and reset with the first
+ * job queued after an idle period. Per-job detail lives in {@link IngestionJobStatus}.
+ * Finished records are also pushed to the dashboard over {@link #eventStream()}.
+ */
 @Component
 public class DataSyncStatus {
 
     private final AtomicInteger processedCount = new AtomicInteger(0);
     private final AtomicInteger totalCount = new AtomicInteger(0);
-    private volatile boolean isJobRunning = false;
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
+    private final AtomicInteger failedWorkers = new AtomicInteger(0);
+    private final AtomicInteger queuedJobs = new AtomicInteger(0);
+    private final AtomicInteger runningJobs = new AtomicInteger(0);
     private volatile String operationalStatus = "System Idle";
+    private volatile long countingSince = System.currentTimeMillis();
 
-    public void startJob(int totalRecords) { // <--- New Name
-        this.totalCount.set(totalRecords);
-        this.processedCount.set(0);
-        this.isJobRunning = true;
+    private final ProgressEventStream eventStream;
+
+    public DataSyncStatus(@Value("${progress.stream.history-size:500}") int historySize,
+                          @Value("${progress.stream.flush-ms:250}") long flushMillis,
+                          @Value("${progress.stream.heartbeat-ms:15000}") long heartbeatMillis,
+                          @Value("${progress.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.eventStream = new ProgressEventStream("ingestion", () -> this, historySize,
+                flushMillis, heartbeatMillis, emitterTimeoutMillis);
+    }
+
+    @PostConstruct
+    public void startStream() { eventStream.start(); }
+
+    @PreDestroy
+    public void stopStream() { eventStream.stop(); }
+
+    /** Per-record event feed behind {@code /api/ingestion/progress/stream}. */
+    public ProgressEventStream eventStream() { return eventStream; }
+
+    public synchronized void jobQueued(int totalRecords) {
+        if (!isJobActive()) {
+            this.processedCount.set(0);
+            this.totalCount.set(0);
+            this.failedWorkers.set(0);
+            this.countingSince = System.currentTimeMillis();
+        }
+        this.totalCount.addAndGet(totalRecords);
+        this.queuedJobs.incrementAndGet();
+        this.operationalStatus = "Batch Queued (" + queuedJobs.get() + " waiting)";
+        eventStream.markChanged();
+    }
+
+    /** A queued job was cancelled before it started: its records count as settled. */
+    public synchronized void jobDequeued(int totalRecords) {
+        this.queuedJobs.decrementAndGet();
+        this.processedCount.addAndGet(totalRecords);
+    }
+
+    public synchronized void startJob() {
+        this.queuedJobs.decrementAndGet();
+        this.runningJobs.incrementAndGet();
         this.operationalStatus = "Initializing Batch Ingestion Sequence...";
+        eventStream.markChanged();
     }
 
     public void updateProgress(String statusUpdate) {
-        this.processedCount.incrementAndGet();
-        this.operationalStatus = statusUpdate;
+        updateProgress(1, statusUpdate);
     }
 
     public void updateProgress(int increment, String statusUpdate) {
         this.processedCount.addAndGet(increment);
         this.operationalStatus = statusUpdate;
+        eventStream.publish(null, null, statusUpdate, null);
     }
 
-    public void finishJob() { // <--- New Name
-        this.isJobRunning = false;
-        this.operationalStatus = "Batch Ingestion Finalized Successfully.";
+    public void recordProcessed(long regNo, String outcome, long elapsedMillis, String statusUpdate) {
+        this.processedCount.incrementAndGet();
+        this.operationalStatus = statusUpdate;
+        eventStream.publish(regNo, outcome, statusUpdate, elapsedMillis);
+    }
+
+    // Worker pool bookkeeping (one call per worker thread)
+    public void workerStarted() { this.activeWorkers.incrementAndGet(); }
+    public void workerStopped() { this.activeWorkers.decrementAndGet(); }
+    public void workerFailed() { this.failedWorkers.incrementAndGet(); }
+
+    public synchronized void finishJob() { // <--- New Name
+        this.runningJobs.decrementAndGet();
+        if (!isJobActive()) {
+            this.operationalStatus = "Batch Ingestion Finalized Successfully.";
+        }
+        eventStream.markChanged();
     }
 
     public int getProcessedCount() { return processedCount.get(); }
     public int getTotalCount() { return totalCount.get(); }
-    public boolean isJobActive() { return isJobRunning; }
+    public int getActiveWorkers() { return activeWorkers.get(); }
+    public int getFailedWorkers() { return failedWorkers.get(); }
+    public int getQueuedJobs() { return queuedJobs.get(); }
+    public int getRunningJobs() { return runningJobs.get(); }
+    public boolean isJobActive() { return queuedJobs.get() > 0 || runningJobs.get() > 0; }
     public String getOperationalStatus() { return operationalStatus; }
-}
\ No newline at end of file
+
+    public Long getEtaSeconds() {
+        return isJobActive() ? ProgressEventStream.etaSeconds(countingSince, processedCount.get(), totalCount.get()) : null;
+    }
+}
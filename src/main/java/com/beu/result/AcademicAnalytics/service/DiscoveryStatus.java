@@ -0,0 +1,90 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Telemetry of discovery probes, kept apart from the ingestion counters in {@link DataSyncStatus}
+ * so a probe never resets or inflates the progress of ingestion jobs running next to it.
+ * Counters accumulate while any probe runs and reset with the first probe after an idle period.
+ * Probed registrations are pushed to the dashboard over {@link #eventStream()}.
+ */
+@Component
+public class DiscoveryStatus {
+
+    private final AtomicInteger probedCount = new AtomicInteger(0);
+    private final AtomicInteger totalCount = new AtomicInteger(0);
+    private final AtomicInteger foundCount = new AtomicInteger(0);
+    private final AtomicInteger runningProbes = new AtomicInteger(0);
+    private volatile String operationalStatus = "Discovery Idle";
+    private volatile long countingSince = System.currentTimeMillis();
+
+    private final ProgressEventStream eventStream;
+
+    public DiscoveryStatus(@Value("${progress.stream.history-size:500}") int historySize,
+                           @Value("${progress.stream.flush-ms:250}") long flushMillis,
+                           @Value("${progress.stream.heartbeat-ms:15000}") long heartbeatMillis,
+                           @Value("${progress.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.eventStream = new ProgressEventStream("discovery", () -> this, historySize,
+                flushMillis, heartbeatMillis, emitterTimeoutMillis);
+    }
+
+    @PostConstruct
+    public void startStream() { eventStream.start(); }
+
+    @PreDestroy
+    public void stopStream() { eventStream.stop(); }
+
+    /** Per-probe event feed behind {@code /api/ingestion/discover/progress/stream}. */
+    public ProgressEventStream eventStream() { return eventStream; }
+
+    public synchronized void probeStarted(int totalRegistrations) {
+        if (!isJobActive()) {
+            this.probedCount.set(0);
+            this.totalCount.set(0);
+            this.foundCount.set(0);
+            this.countingSince = System.currentTimeMillis();
+        }
+        this.totalCount.addAndGet(totalRegistrations);
+        this.runningProbes.incrementAndGet();
+        this.operationalStatus = "Discovery Probe Running...";
+        eventStream.markChanged();
+    }
+
+    public void recordProbed(long regNo, String outcome, boolean found, long elapsedMillis, String statusUpdate) {
+        this.probedCount.incrementAndGet();
+        if (found) this.foundCount.incrementAndGet();
+        this.operationalStatus = statusUpdate;
+        eventStream.publish(regNo, outcome, statusUpdate, elapsedMillis);
+    }
+
+    /** Registrations passed over without a probe (the rest of an exhausted sub-block). */
+    public void recordSkipped(int count, String statusUpdate) {
+        this.probedCount.addAndGet(count);
+        this.operationalStatus = statusUpdate;
+        eventStream.publish(null, null, statusUpdate, null);
+    }
+
+    public synchronized void probeFinished() {
+        this.runningProbes.decrementAndGet();
+        if (!isJobActive()) {
+            this.operationalStatus = "Discovery Finished: " + foundCount.get() + " registrations found.";
+        }
+        eventStream.markChanged();
+    }
+
+    public int getProcessedCount() { return probedCount.get(); }
+    public int getTotalCount() { return totalCount.get(); }
+    public int getFoundCount() { return foundCount.get(); }
+    public int getRunningProbes() { return runningProbes.get(); }
+    public boolean isJobActive() { return runningProbes.get() > 0; }
+    public String getOperationalStatus() { return operationalStatus; }
+
+    public Long getEtaSeconds() {
+        return isJobActive() ? ProgressEventStream.etaSeconds(countingSince, probedCount.get(), totalCount.get()) : null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Everything the ingestion pipeline needs from one result page,
+ * independent of how the page was fetched.
+ *
+ * @param status   page classification; only READY carries data
+ * @param profile  parsed student profile, or null when it could not be read
+ * @param grades   SGPA/CGPA row, or null when absent
+ * @param semester semester label of the published result (e.g. "V")
+ * @param remarks  PASS/FAIL/ABSENT style remark for that semester
+ */
+public record ExtractedResult(PageStatus status,
+                              StudentInformations profile,
+                              StudentGrade grades,
+                              String semester,
+                              String remarks) {
+
+    public static ExtractedResult of(PageStatus status) {
+        return new ExtractedResult(status, null, null, null, null);
+    }
+
+    /**
+     * SHA-256 over the extracted fields. Two fetches of an unchanged result page hash the same,
+     * which lets the writer skip records whose stored data is already current.
+     */
+    public String contentHash() {
+        StringBuilder canonical = new StringBuilder().append(status);
+        if (profile != null) {
+            canonical.append('|').append(profile.getStudentName()).append('|').append(profile.getFatherName())
+                    .append('|').append(profile.getMotherName()).append('|').append(profile.getBranch());
+        }
+        if (grades != null) {
+            for (int sem = 1; sem <= 8; sem++) canonical.append('|').append(grades.getSem(sem));
+            canonical.append('|').append(grades.getCgpa());
+        }
+        canonical.append('|').append(semester).append('|').append(remarks);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Builds a grade row from raw table cells.
+     * Cells firstSemIndex..firstSemIndex+7 hold SEM I-VIII, the next one holds CGPA.
+     * "NA", "-", blanks and anything else that is not a number become null.
+     */
+    static StudentGrade gradesFromCells(List<String> cells, int firstSemIndex) {
+        StudentGrade g = new StudentGrade();
+        g.setSem1(normalize(cells, firstSemIndex)); g.setSem2(normalize(cells, firstSemIndex + 1));
+        g.setSem3(normalize(cells, firstSemIndex + 2)); g.setSem4(normalize(cells, firstSemIndex + 3));
+        g.setSem5(normalize(cells, firstSemIndex + 4)); g.setSem6(normalize(cells, firstSemIndex + 5));
+        g.setSem7(normalize(cells, firstSemIndex + 6)); g.setSem8(normalize(cells, firstSemIndex + 7));
+        g.setCgpa(normalize(cells, firstSemIndex + 8));
+        return g;
+    }
+
+    private static Double normalize(List<String> cells, int index) {
+        if (index >= cells.size()) return null;
+        String val = cells.get(index).trim();
+        if (val.equals("-") || val.equals("NA") || val.isEmpty()) return null;
+        try {
+            return Double.valueOf(val);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
+import com.beu.result.AcademicAnalytics.entity.RegistrationBlock;
+import com.beu.result.AcademicAnalytics.repository.DiscoveredRegistrationRepository;
+import com.beu.result.AcademicAnalytics.repository.IngestionJobRepository;
+import com.beu.result.AcademicAnalytics.repository.IngestionRecordOutcomeRepository;
+import com.beu.result.AcademicAnalytics.repository.RegistrationBlockRepository;
+import com.beu.result.AcademicAnalytics.repository.StudentSyncStateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Persistent bookkeeping for ingestion jobs.
+ * <p>
+ * Jobs are recorded in {@code ingestion_jobs} when they start; per-record outcomes and the
+ * contiguous {@code lastCompletedReg} watermark are written by {@link StudentRecordWriter}
+ * in the same transaction as the student data. A job still RUNNING (queued or in progress) at startup was
+ * interrupted and can be resumed, skipping every record whose outcome is already terminal.
+ * </p>
+ * <p>
+ * Incremental re-syncs only trust a link's sync state for {@code ingestion.incremental.recheck-after-hours}:
+ * a result link can publish new or revised results in place, so older registrations are fetched
+ * again and the writer's content hash decides whether anything changed.
+ * </p>
+ */
+@Service
+public class IngestionCheckpointService {
+
+    /** Outcomes that never need to be fetched again within the same job. */
+    public static final Set<String> TERMINAL_OUTCOMES = Set.of(PageStatus.READY.name(), PageStatus.NO_RECORD.name());
+
+    private final IngestionJobRepository jobRepository;
+    private final IngestionRecordOutcomeRepository outcomeRepository;
+    private final StudentSyncStateRepository syncStateRepository;
+    private final RegistrationBlockRepository blockRepository;
+    private final DiscoveredRegistrationRepository discoveredRepository;
+    private final long recheckAfterHours;
+
+    public IngestionCheckpointService(IngestionJobRepository jobRepository,
+                                      IngestionRecordOutcomeRepository outcomeRepository,
+                                      StudentSyncStateRepository syncStateRepository,
+                                      RegistrationBlockRepository blockRepository,
+                                      DiscoveredRegistrationRepository discoveredRepository,
+                                      @Value("${ingestion.incremental.recheck-after-hours:24}") long recheckAfterHours) {
+        this.jobRepository = jobRepository;
+        this.outcomeRepository = outcomeRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.blockRepository = blockRepository;
+        this.discoveredRepository = discoveredRepository;
+        this.recheckAfterHours = recheckAfterHours;
+    }
+
+    public IngestionJob openJob(String linkKey, long startReg, long endReg, int priority,
+                                boolean incremental, boolean recheckNoRecord, boolean discoveredOnly) {
+        IngestionJob job = new IngestionJob(linkKey, startReg, endReg, incremental, recheckNoRecord);
+        job.setPriority(priority);
+        job.setDiscoveredOnly(discoveredOnly);
+        return jobRepository.save(job);
+    }
+
+    public Optional<IngestionJob> findJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /** Jobs left queued or running by a crash or restart. */
+    public List<IngestionJob> findInterruptedJobs() {
+        return jobRepository.findByStateOrderByIdAsc(IngestionJob.State.RUNNING);
+    }
+
+    /** Registrations of this job that already reached READY or NO_RECORD. */
+    public Set<Long> completedRegistrations(Long jobId) {
+        return new HashSet<>(outcomeRepository.findRegistrationsWithOutcome(jobId, TERMINAL_OUTCOMES));
+    }
+
+    /**
+     * Registrations an incremental job does not need to fetch: synced for the job's link within
+     * the recheck window with their data still stored, and (unless re-checking) known NO_RECORD numbers.
+     */
+    public Set<Long> alreadySyncedRegistrations(IngestionJob job) {
+        return new HashSet<>(syncStateRepository.findSkippableRegistrations(job.getLinkKey(),
+                job.getRangeStart(), job.getRangeEnd(), !job.isRecheckingNoRecord(),
+                LocalDateTime.now().minusHours(recheckAfterHours)));
+    }
+
+    /**
+     * Registrations of the job's range that lie inside a block probed on the job's link but
+     * were not discovered there. Blocks never probed on that link contribute nothing, whatever
+     * other links found.
+     */
+    public Set<Long> undiscoveredRegistrations(IngestionJob job) {
+        Set<Long> skipped = new HashSet<>();
+        List<RegistrationBlock> blocks = blockRepository.findByLinkKeyAndPrefixBetweenOrderByPrefixAsc(job.getLinkKey(),
+                RegistrationDiscoveryService.prefixOf(job.getRangeStart()), RegistrationDiscoveryService.prefixOf(job.getRangeEnd()));
+        if (blocks.isEmpty()) return skipped;
+
+        Set<Long> discovered = new HashSet<>(discoveredRepository.findRegistrationsBetween(
+                job.getLinkKey(), job.getRangeStart(), job.getRangeEnd()));
+        for (RegistrationBlock block : blocks) {
+            long from = Math.max(job.getRangeStart(), block.getProbedFrom());
+            long to = Math.min(job.getRangeEnd(), block.getProbedTo());
+            for (long regNo = from; regNo <= to; regNo++) {
+                if (!discovered.contains(regNo)) skipped.add(regNo);
+            }
+        }
+        return skipped;
+    }
+
+    public void updateState(Long jobId, IngestionJob.State state) {
+        jobRepository.updateState(jobId, state, LocalDateTime.now());
+    }
+
+    /** Marks a finished job RUNNING again so it can be scheduled like an interrupted one. */
+    public Optional<IngestionJob> reopenJob(Long jobId) {
+        updateState(jobId, IngestionJob.State.RUNNING);
+        return jobRepository.findById(jobId);
+    }
+}
@@ -0,0 +1,238 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue of ingestion jobs with priorities and a concurrency cap.
+ * <p>
+ * Submitted jobs are persisted first (so a restart re-queues them), then wait in a
+ * priority queue: higher {@code priority} first, FIFO within a priority. A dispatcher
+ * thread starts the next job whenever one of {@code ingestion.scheduler.max-concurrent-jobs}
+ * slots is free, so a whole semester's worth of links runs back-to-back unattended.
+ * Every job has its own {@link IngestionJobStatus} that can pause, resume or cancel it.
+ * </p>
+ */
+@Component
+public class IngestionJobScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestionJobScheduler.class);
+
+    public static final int DEFAULT_PRIORITY = 5;
+
+    private record QueuedJob(IngestionJob job, IngestionJobStatus status, long sequence) {}
+
+    private static final Comparator<QueuedJob> QUEUE_ORDER = Comparator
+            .comparingInt((QueuedJob q) -> q.status().getPriority()).reversed()
+            .thenComparingLong(QueuedJob::sequence);
+
+    private final PriorityBlockingQueue<QueuedJob> queue = new PriorityBlockingQueue<>(16, QUEUE_ORDER);
+    private final Map<Long, IngestionJobStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final TranscriptGenerationService ingestionService;
+    private final IngestionCheckpointService checkpointService;
+    private final DataSyncStatus syncStatus;
+    private final TaskExecutor jobExecutor;
+    private final Semaphore runningSlots;
+    private final int retainedFinishedJobs;
+
+    private volatile boolean running = false;
+    private Thread dispatcher;
+
+    public IngestionJobScheduler(TranscriptGenerationService ingestionService,
+                                 IngestionCheckpointService checkpointService,
+                                 DataSyncStatus syncStatus,
+                                 @Qualifier("ingestionJobExecutor") TaskExecutor jobExecutor,
+                                 @Value("${ingestion.scheduler.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                 @Value("${ingestion.scheduler.retained-finished-jobs:50}") int retainedFinishedJobs) {
+        this.ingestionService = ingestionService;
+        this.checkpointService = checkpointService;
+        this.syncStatus = syncStatus;
+        this.jobExecutor = jobExecutor;
+        this.runningSlots = new Semaphore(Math.max(1, maxConcurrentJobs));
+        this.retainedFinishedJobs = Math.max(0, retainedFinishedJobs);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "ingest-job-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    // ==========================================
+    // SUBMISSION
+    // ==========================================
+
+    /**
+     * Persists and queues a new ingestion job.
+     *
+     * @param incremental     skip registrations already synced for this link
+     * @param recheckNoRecord with incremental, still re-fetch registrations that returned NO_RECORD
+     * @param discoveredOnly  inside probed blocks, only fetch registrations found by discovery
+     */
+    public IngestionJobStatus submit(String linkKeyOrUrl, long startReg, long endReg, int priority,
+                                     boolean incremental, boolean recheckNoRecord, boolean discoveredOnly) {
+        return enqueue(checkpointService.openJob(linkKeyOrUrl, startReg, endReg, priority,
+                incremental, recheckNoRecord, discoveredOnly));
+    }
+
+    /** Re-queues every job left queued or running by a crash or restart. */
+    public void resumeInterruptedJobs() {
+        for (IngestionJob job : checkpointService.findInterruptedJobs()) {
+            if (statuses.containsKey(job.getId())) continue;
+            LOG.info("Re-queueing interrupted ingestion job #{} ({} - {}) from checkpoint {}",
+                    job.getId(), job.getRangeStart(), job.getRangeEnd(), job.getLastCompletedReg());
+            enqueue(job);
+        }
+    }
+
+    /** Re-queues a finished, failed or cancelled job; it continues from its checkpoint. */
+    public Optional<IngestionJobStatus> resubmit(Long jobId) {
+        IngestionJobStatus current = statuses.get(jobId);
+        if (current != null && !current.isFinished()) return Optional.of(current);
+        return checkpointService.reopenJob(jobId).map(this::enqueue);
+    }
+
+    private IngestionJobStatus enqueue(IngestionJob job) {
+        int priority = job.getPriority() != null ? job.getPriority() : DEFAULT_PRIORITY;
+        IngestionJobStatus status = new IngestionJobStatus(job.getId(), job.getLinkKey(),
+                job.getRangeStart(), job.getRangeEnd(), priority, syncStatus);
+        statuses.put(job.getId(), status);
+        syncStatus.jobQueued(status.getTotalCount());
+        queue.add(new QueuedJob(job, status, sequence.incrementAndGet()));
+        LOG.info("Ingestion job #{} queued (priority {}, {} waiting)", job.getId(), priority, queue.size());
+        pruneFinished();
+        return status;
+    }
+
+    // ==========================================
+    // CONTROL
+    // ==========================================
+
+    public Optional<IngestionJobStatus> find(Long jobId) {
+        return Optional.ofNullable(statuses.get(jobId));
+    }
+
+    /** Every known job, newest first. */
+    public List<IngestionJobStatus> list() {
+        return statuses.values().stream()
+                .sorted(Comparator.comparingLong(IngestionJobStatus::getJobId).reversed())
+                .toList();
+    }
+
+    public boolean pause(Long jobId) {
+        return find(jobId).map(IngestionJobStatus::pause).orElse(false);
+    }
+
+    public boolean resume(Long jobId) {
+        return find(jobId).map(IngestionJobStatus::resume).orElse(false);
+    }
+
+    /**
+     * Cancels a job. A queued job is dropped straight away; a running or paused one
+     * stops after the records in flight and keeps its checkpoint for a later resubmit.
+     */
+    public boolean cancel(Long jobId) {
+        IngestionJobStatus status = statuses.get(jobId);
+        if (status == null) return false;
+        IngestionJobStatus.State previous = status.cancel();
+        if (previous == null) return false;
+
+        // If the dispatcher already took it, it drops the job itself (see dispatchLoop)
+        if (previous == IngestionJobStatus.State.QUEUED && queue.removeIf(q -> q.status() == status)) {
+            drop(status, IngestionJobStatus.State.CANCELLED);
+        }
+        LOG.info("Ingestion job #{} cancelled (was {})", jobId, previous);
+        return true;
+    }
+
+    // ==========================================
+    // DISPATCH
+    // ==========================================
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                runningSlots.acquire();
+                QueuedJob next;
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    runningSlots.release();
+                    throw e;
+                }
+                if (!next.status().markStarted()) { // cancelled while waiting
+                    runningSlots.release();
+                    drop(next.status(), IngestionJobStatus.State.CANCELLED);
+                    continue;
+                }
+                try {
+                    jobExecutor.execute(() -> runJob(next));
+                } catch (RuntimeException e) {
+                    runningSlots.release();
+                    drop(next.status(), IngestionJobStatus.State.FAILED);
+                    LOG.error("Ingestion job #{} could not be started", next.job().getId(), e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** Retires a job that never ran; its records count as settled in the aggregate view. */
+    private void drop(IngestionJobStatus status, IngestionJobStatus.State finalState) {
+        syncStatus.jobDequeued(status.getTotalCount());
+        status.markFinished(finalState);
+        checkpointService.updateState(status.getJobId(), IngestionJob.State.FAILED);
+    }
+
+    private void runJob(QueuedJob queued) {
+        IngestionJobStatus status = queued.status();
+        syncStatus.startJob();
+        try {
+            status.markFinished(ingestionService.processResultRange(queued.job(), status));
+        } catch (RuntimeException e) {
+            LOG.error("Ingestion job #{} failed", queued.job().getId(), e);
+            status.markFinished(IngestionJobStatus.State.FAILED);
+        } finally {
+            syncStatus.finishJob();
+            runningSlots.release();
+        }
+    }
+
+    private void pruneFinished() {
+        List<IngestionJobStatus> finished = statuses.values().stream()
+                .filter(IngestionJobStatus::isFinished)
+                .sorted(Comparator.comparingLong(IngestionJobStatus::getJobId))
+                .toList();
+        for (int i = 0; i < finished.size() - retainedFinishedJobs; i++) {
+            statuses.remove(finished.get(i).getJobId());
+        }
+    }
+}
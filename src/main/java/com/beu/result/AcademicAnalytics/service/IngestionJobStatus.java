@@ -0,0 +1,160 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live status of one scheduled ingestion job, plus its pause/cancel controls.
+ * Progress is mirrored into the aggregate {@link DataSyncStatus} shown on the dashboard.
+ */
+public class IngestionJobStatus {
+
+    public enum State { QUEUED, RUNNING, PAUSED, CANCELLED, COMPLETED, FAILED }
+
+    private final long jobId;
+    private final String linkKey;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final int priority;
+    private final int totalCount;
+    private final AtomicInteger processedCount = new AtomicInteger(0);
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
+    private final DataSyncStatus aggregate;
+    private final Object stateMonitor = new Object();
+
+    private volatile State state = State.QUEUED;
+    private volatile String operationalStatus = "Queued";
+    private final LocalDateTime queuedAt = LocalDateTime.now();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public IngestionJobStatus(long jobId, String linkKey, long rangeStart, long rangeEnd, int priority, DataSyncStatus aggregate) {
+        this.jobId = jobId;
+        this.linkKey = linkKey;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.priority = priority;
+        this.totalCount = (int) (rangeEnd - rangeStart + 1);
+        this.aggregate = aggregate;
+    }
+
+    // ==========================================
+    // PROGRESS (mirrored into the aggregate view)
+    // ==========================================
+
+    public void updateProgress(String statusUpdate) {
+        updateProgress(1, statusUpdate);
+    }
+
+    public void updateProgress(int increment, String statusUpdate) {
+        this.processedCount.addAndGet(increment);
+        this.operationalStatus = statusUpdate;
+        aggregate.updateProgress(increment, "Job #" + jobId + ": " + statusUpdate);
+    }
+
+    /** One record finished; also published as a per-record event on the aggregate progress stream. */
+    public void recordProcessed(long regNo, String outcome, long elapsedMillis, String statusUpdate) {
+        this.processedCount.incrementAndGet();
+        this.operationalStatus = statusUpdate;
+        aggregate.recordProcessed(regNo, outcome, elapsedMillis, "Job #" + jobId + ": " + statusUpdate);
+    }
+
+    public void workerStarted() { activeWorkers.incrementAndGet(); aggregate.workerStarted(); }
+    public void workerStopped() { activeWorkers.decrementAndGet(); aggregate.workerStopped(); }
+    public void workerFailed() { aggregate.workerFailed(); }
+
+    // ==========================================
+    // LIFECYCLE
+    // ==========================================
+
+    /** Moves a queued job to RUNNING. Returns false if it was cancelled while queued. */
+    boolean markStarted() {
+        synchronized (stateMonitor) {
+            if (state != State.QUEUED) return false;
+            state = State.RUNNING;
+            startedAt = LocalDateTime.now();
+            return true;
+        }
+    }
+
+    void markFinished(State finalState) {
+        synchronized (stateMonitor) {
+            if (state != State.CANCELLED) state = finalState;
+            finishedAt = LocalDateTime.now();
+            stateMonitor.notifyAll();
+        }
+    }
+
+    public boolean pause() {
+        synchronized (stateMonitor) {
+            if (state != State.RUNNING) return false;
+            state = State.PAUSED;
+            operationalStatus = "Paused";
+            return true;
+        }
+    }
+
+    public boolean resume() {
+        synchronized (stateMonitor) {
+            if (state != State.PAUSED) return false;
+            state = State.RUNNING;
+            operationalStatus = "Resumed";
+            stateMonitor.notifyAll();
+            return true;
+        }
+    }
+
+    /** Cancels a queued, running or paused job. Returns the state it was cancelled from, or null. */
+    State cancel() {
+        synchronized (stateMonitor) {
+            State previous = state;
+            if (previous != State.QUEUED && previous != State.RUNNING && previous != State.PAUSED) return null;
+            state = State.CANCELLED;
+            operationalStatus = "Cancelled";
+            stateMonitor.notifyAll();
+            return previous;
+        }
+    }
+
+    /**
+     * Called by workers between work units, with no browser leased: blocks while the job is
+     * paused. Returns false once the job has been cancelled and the worker should stop.
+     */
+    public boolean awaitRunnable() throws InterruptedException {
+        synchronized (stateMonitor) {
+            while (state == State.PAUSED) stateMonitor.wait();
+            return state != State.CANCELLED;
+        }
+    }
+
+    public boolean isCancelled() { return state == State.CANCELLED; }
+
+    /** Paused or cancelled: a worker should hand back the rest of its unit and release its browser. */
+    public boolean haltRequested() {
+        State s = state;
+        return s == State.PAUSED || s == State.CANCELLED;
+    }
+
+    public boolean isFinished() {
+        State s = state;
+        return s == State.CANCELLED || s == State.COMPLETED || s == State.FAILED;
+    }
+
+    // ==========================================
+    // GETTERS (JSON view)
+    // ==========================================
+
+    public long getJobId() { return jobId; }
+    public String getLinkKey() { return linkKey; }
+    public long getRangeStart() { return rangeStart; }
+    public long getRangeEnd() { return rangeEnd; }
+    public int getPriority() { return priority; }
+    public int getTotalCount() { return totalCount; }
+    public int getProcessedCount() { return processedCount.get(); }
+    public int getActiveWorkers() { return activeWorkers.get(); }
+    public State getState() { return state; }
+    public String getOperationalStatus() { return operationalStatus; }
+    public LocalDateTime getQueuedAt() { return queuedAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+}
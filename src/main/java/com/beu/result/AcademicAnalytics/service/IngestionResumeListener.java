@@ -0,0 +1,28 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks up ingestion jobs that were still running when the application last stopped.
+ * Disable with {@code ingestion.resume-on-startup=false} to resume them manually instead.
+ */
+@Component
+public class IngestionResumeListener {
+
+    private final IngestionJobScheduler jobScheduler;
+    private final boolean resumeOnStartup;
+
+    public IngestionResumeListener(IngestionJobScheduler jobScheduler,
+                                   @Value("${ingestion.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.jobScheduler = jobScheduler;
+        this.resumeOnStartup = resumeOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (resumeOnStartup) jobScheduler.resumeInterruptedJobs();
+    }
+}
@@ -0,0 +1,128 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP-first fetch path for the legacy ASP.NET result portal (results.beup.ac.in/*.aspx).
+ * <p>
+ * Those pages are fully server-rendered, so a plain GET plus jsoup parsing replaces a
+ * Chromium round-trip. The single {@link HttpClient} keeps a keep-alive connection pool
+ * shared by every ingestion worker. Angular pages (beu-bih.ac.in/result-three) still
+ * need Playwright and are rejected by {@link #supports(String)}.
+ * </p>
+ */
+@Component
+public class LegacyPortalFetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LegacyPortalFetcher.class);
+
+    private static final Pattern NO_RECORD_PATTERN =
+            Pattern.compile("No Record Found|Invalid Registration|Data Not Available", Pattern.CASE_INSENSITIVE);
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0 Safari/537.36";
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final boolean enabled;
+
+    public LegacyPortalFetcher(@Value("${ingestion.http-first.enabled:true}") boolean enabled,
+                               @Value("${ingestion.http-first.timeout-seconds:20}") int timeoutSeconds) {
+        this.enabled = enabled;
+        this.requestTimeout = Duration.ofSeconds(timeoutSeconds);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * True when the URL template points at a server-rendered legacy page.
+     */
+    public boolean supports(String urlPattern) {
+        if (!enabled || urlPattern == null) return false;
+        String lower = urlPattern.toLowerCase();
+        return lower.contains("results.beup.ac.in") || lower.contains(".aspx");
+    }
+
+    /**
+     * Downloads and parses one legacy result page.
+     * Returns UNKNOWN when the markup does not look like the legacy layout,
+     * which tells the caller to fall back to the browser path.
+     */
+    public ExtractedResult fetch(String targetUrl, long regNo) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(targetUrl))
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "text/html,application/xhtml+xml")
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            LOG.debug("Legacy fetch for {} returned HTTP {}", regNo, response.statusCode());
+            return ExtractedResult.of(response.statusCode() == 404 ? PageStatus.NO_RECORD : PageStatus.UNKNOWN);
+        }
+        return parse(Jsoup.parse(response.body(), targetUrl), regNo);
+    }
+
+    // ==========================================
+    // JSOUP PARSING (mirrors the ContentPlaceHolder1_* layout)
+    // ==========================================
+
+    private ExtractedResult parse(Document doc, long regNo) {
+        if (NO_RECORD_PATTERN.matcher(doc.body().text()).find()) {
+            return ExtractedResult.of(PageStatus.NO_RECORD);
+        }
+
+        String name = textById(doc, "ContentPlaceHolder1_DataList1_StudentNameLabel_0");
+        if (name == null) return ExtractedResult.of(PageStatus.UNKNOWN);
+        if (name.isEmpty()) return ExtractedResult.of(PageStatus.NAME_EMPTY);
+
+        Element table = doc.select("table:contains(Subject Code)").first();
+        if (table == null) return ExtractedResult.of(PageStatus.UNKNOWN);
+        if (table.select("tr").size() <= 2) return ExtractedResult.of(PageStatus.EMPTY_TABLE);
+
+        StudentInformations profile = new StudentInformations(regNo, name,
+                textById(doc, "ContentPlaceHolder1_DataList1_FatherNameLabel_0"),
+                textById(doc, "ContentPlaceHolder1_DataList1_MotherNameLabel_0"),
+                "B.Tech",
+                textById(doc, "ContentPlaceHolder1_DataList1_CourseLabel_0"));
+
+        StudentGrade grades = null;
+        Elements gradeRows = doc.select("#ContentPlaceHolder1_GridView3 tr");
+        if (gradeRows.size() > 1) {
+            grades = ExtractedResult.gradesFromCells(gradeRows.get(1).select("td").eachText(), 0);
+        }
+
+        String semester = textById(doc, "ContentPlaceHolder1_DataList2_Exam_Name_0");
+        String remarks = textById(doc, "ContentPlaceHolder1_DataList3_remarkLabel_0");
+
+        return new ExtractedResult(PageStatus.READY, profile, grades, semester,
+                (remarks != null && !remarks.isEmpty()) ? remarks : "PASS");
+    }
+
+    private String textById(Document doc, String id) {
+        Element el = doc.getElementById(id);
+        // jsoup keeps &nbsp; as U+00A0, which String.trim() does not strip
+        return (el != null) ? el.text().replace('\u00a0', ' ').trim() : null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.microsoft.playwright.JSHandle;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.WaitUntilState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Event-driven readiness detection for result pages.
+ * <p>
+ * Navigation only waits for DOMCONTENTLOADED; a single in-page {@code waitForFunction}
+ * predicate then checks the "No Record Found" banner, the student name cell and the
+ * subject table in one evaluation per poll, all inside the browser. This replaces
+ * NETWORKIDLE (which waits out every analytics beacon) and the Java-side sleep/poll
+ * loop that paid several driver round-trips per iteration.
+ * </p>
+ * <p>
+ * Negative states (empty name / empty table) only count after {@code readiness.grace-ms},
+ * because the Angular portal renders its empty skeleton before the data arrives.
+ * </p>
+ */
+@Component
+public class PageReadinessProbe {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PageReadinessProbe.class);
+
+    /** Resolved state, time until DOMContentLoaded, and total time including the readiness wait. */
+    public record Outcome(PageStatus status, long navigateMillis, long elapsedMillis) {
+        public long readinessMillis() {
+            return elapsedMillis - navigateMillis;
+        }
+    }
+
+    private static final String READINESS_PREDICATE = """
+            (opts) => {
+                const started = window.__beuReadyStart || (window.__beuReadyStart = Date.now());
+                const settled = Date.now() - started >= opts.graceMs;
+                const body = document.body;
+                if (!body) return false;
+
+                if (/No Record Found|Invalid Registration|Data Not Available/i.test(body.innerText)) return 'NO_RECORD';
+
+                const table = Array.from(document.querySelectorAll('table'))
+                        .find(t => t.textContent.includes('Subject Code'));
+
+                let nameCell = null;
+                const nameRow = Array.from(document.querySelectorAll('tr'))
+                        .find(r => !r.querySelector('tr') && r.textContent.includes('Student Name'));
+                if (nameRow && nameRow.querySelectorAll('td').length > 1) nameCell = nameRow.querySelectorAll('td')[1];
+                if (!nameCell) nameCell = document.getElementById('ContentPlaceHolder1_DataList1_StudentNameLabel_0');
+
+                const name = nameCell ? nameCell.innerText.replace(/\\u00a0/g, ' ').trim() : null;
+                const rows = table ? table.querySelectorAll('tr').length : 0;
+
+                if (name && rows > 2) return 'READY';
+                if (!settled) return false;
+                if (table && rows <= 2) return 'EMPTY_TABLE';
+                if (nameCell && !name) return 'NAME_EMPTY';
+                return false;
+            }
+            """;
+
+    private final double pollingIntervalMs;
+    private final long graceMs;
+
+    public PageReadinessProbe(@Value("${readiness.polling-ms:100}") double pollingIntervalMs,
+                              @Value("${readiness.grace-ms:3000}") long graceMs) {
+        this.pollingIntervalMs = pollingIntervalMs;
+        this.graceMs = graceMs;
+    }
+
+    /**
+     * Navigates to the URL and blocks until the page reaches a terminal state.
+     * A page that never settles within the readiness timeout is reported as UNKNOWN.
+     */
+    public Outcome navigateAndAwait(Page page, String targetUrl, double navigationTimeoutMs, double readinessTimeoutMs) {
+        long startTime = System.currentTimeMillis();
+        page.navigate(targetUrl, new Page.NavigateOptions()
+                .setTimeout(navigationTimeoutMs)
+                .setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+        long navigateMillis = System.currentTimeMillis() - startTime;
+
+        PageStatus status;
+        try {
+            JSHandle handle = page.waitForFunction(READINESS_PREDICATE, Map.of("graceMs", graceMs),
+                    new Page.WaitForFunctionOptions()
+                            .setPollingInterval(pollingIntervalMs)
+                            .setTimeout(readinessTimeoutMs));
+            status = PageStatus.valueOf(String.valueOf(handle.jsonValue()));
+            handle.dispose();
+        } catch (TimeoutError e) {
+            status = PageStatus.UNKNOWN;
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        LOG.debug("Readiness for {} resolved as {} after {}ms", targetUrl, status, elapsed);
+        return new Outcome(status, navigateMillis, elapsed);
+    }
+}
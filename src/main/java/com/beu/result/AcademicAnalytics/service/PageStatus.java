@@ -0,0 +1,7 @@
+package com.beu.result.AcademicAnalytics.service;
+
+/**
+ * Outcome of inspecting a single result page.
+ * Shared by every fetch path (HTTP/jsoup and Playwright).
+ */
+public enum PageStatus { READY, EMPTY_TABLE, NAME_EMPTY, NO_RECORD, UNKNOWN }
@@ -0,0 +1,88 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Micrometer instrumentation shared by the ingestion and archival pipelines.
+ * <p>
+ * {@code pipeline.stage.duration} is a timer with a percentile histogram, tagged by
+ * {@code stage}, {@code link} (result link key) and {@code outcome} (READY, NO_RECORD,
+ * NAME_EMPTY, ERROR, ...). {@code pipeline.records} counts finished records per
+ * {@code pipeline}, link and outcome. Both are served on {@code /actuator/metrics} and
+ * {@code /actuator/prometheus}, so a slow run can be pinned on the portal (navigate,
+ * readiness), Chromium (extract, pdf_render) or SQLite (db_write).
+ * </p>
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_HTTP_FETCH = "http_fetch";
+    public static final String STAGE_NAVIGATE = "navigate";
+    public static final String STAGE_READINESS = "readiness";
+    public static final String STAGE_EXTRACT = "extract";
+    public static final String STAGE_DB_WRITE = "db_write";
+    public static final String STAGE_PDF_RENDER = "pdf_render";
+    public static final String STAGE_LOCAL_RENDER = "local_render";
+    public static final String STAGE_PDF_WRITE = "pdf_write";
+    public static final String STAGE_MERGE = "merge";
+
+    public static final String PIPELINE_INGESTION = "ingestion";
+    public static final String PIPELINE_ARCHIVAL = "archival";
+
+    public static final String OUTCOME_ERROR = "ERROR";
+
+    private static final String STAGE_TIMER = "pipeline.stage.duration";
+    private static final String RECORD_COUNTER = "pipeline.records";
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordStage(String stage, String linkKey, String outcome, long elapsedNanos) {
+        Timer.builder(STAGE_TIMER)
+                .description("Time spent per record in one pipeline stage")
+                .tag("stage", stage)
+                .tag("link", linkTag(linkKey))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry)
+                .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    public void recordStageMillis(String stage, String linkKey, String outcome, long elapsedMillis) {
+        recordStage(stage, linkKey, outcome, Duration.ofMillis(elapsedMillis).toNanos());
+    }
+
+    /** Splits a readiness outcome into its navigate and readiness-wait stages. */
+    public void recordPageLoad(String linkKey, PageReadinessProbe.Outcome outcome) {
+        String status = outcome.status().name();
+        recordStageMillis(STAGE_NAVIGATE, linkKey, status, outcome.navigateMillis());
+        recordStageMillis(STAGE_READINESS, linkKey, status, outcome.readinessMillis());
+    }
+
+    public void countRecord(String pipeline, String linkKey, String outcome) {
+        Counter.builder(RECORD_COUNTER)
+                .description("Records finished, by outcome")
+                .tag("pipeline", pipeline)
+                .tag("link", linkTag(linkKey))
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /** Link keys are a handful of configured names; ad-hoc URLs would explode the tag's cardinality. */
+    private static String linkTag(String linkKey) {
+        if (linkKey == null) return "none";
+        return linkKey.startsWith("http") ? "custom-url" : linkKey;
+    }
+}
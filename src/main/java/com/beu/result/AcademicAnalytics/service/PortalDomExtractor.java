@@ -0,0 +1,139 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.microsoft.playwright.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-round-trip DOM extraction for browser-rendered result pages.
+ * <p>
+ * Each portal layout has one extraction function that reads the profile, SGPA row,
+ * semester and remarks inside the page. Both functions ship in one {@code page.evaluate}
+ * call that picks the layout and classifies the page status in-page, so a record costs
+ * one driver round-trip instead of 20+ {@code locator().count()/innerText()} calls.
+ * </p>
+ */
+@Component
+public class PortalDomExtractor {
+
+    // ASP.NET portal (results.beup.ac.in): everything is addressable by ContentPlaceHolder1_* ids
+    private static final String LEGACY_LAYOUT = """
+            () => {
+                const text = (id) => {
+                    const el = document.getElementById(id);
+                    return el ? el.innerText.replace(/\\u00a0/g, ' ').trim() : null;
+                };
+                const gradeRow = document.querySelectorAll('#ContentPlaceHolder1_GridView3 tr')[1];
+                const remarks = text('ContentPlaceHolder1_DataList3_remarkLabel_0');
+                return {
+                    layout: 'LEGACY',
+                    profile: {
+                        name: text('ContentPlaceHolder1_DataList1_StudentNameLabel_0'),
+                        father: text('ContentPlaceHolder1_DataList1_FatherNameLabel_0'),
+                        mother: text('ContentPlaceHolder1_DataList1_MotherNameLabel_0'),
+                        branch: text('ContentPlaceHolder1_DataList1_CourseLabel_0')
+                    },
+                    sgpa: gradeRow ? Array.from(gradeRow.querySelectorAll('td')).map(td => td.innerText) : null,
+                    semester: text('ContentPlaceHolder1_DataList2_Exam_Name_0'),
+                    remarks: remarks ? remarks : 'PASS'
+                };
+            }
+            """;
+
+    // Angular portal (beu-bih.ac.in/result-three): label/value rows, matched on their innermost <tr>/<td>
+    private static final String MODERN_LAYOUT = """
+            () => {
+                const clean = (s) => s == null ? null : s.replace(/\\u00a0/g, ' ').trim();
+                const leafRows = Array.from(document.querySelectorAll('tr')).filter(r => !r.querySelector('tr'));
+                const cellOf = (label, index) => {
+                    const row = leafRows.find(r => r.textContent.includes(label));
+                    const cells = row ? row.querySelectorAll('td') : [];
+                    return cells.length > index ? clean(cells[index].innerText) : null;
+                };
+                const sgpaRows = leafRows.filter(r => r.textContent.includes('SGPA'));
+                const sgpaRow = sgpaRows.length ? sgpaRows[sgpaRows.length - 1] : null;
+
+                let semester = null;
+                const semCell = Array.from(document.querySelectorAll('td'))
+                        .find(td => !td.querySelector('td') && td.textContent.includes('Semester:'));
+                if (semCell) semester = clean(semCell.innerText.replace('Semester:', ''));
+                if (!semester) {
+                    const m = /(?:semester|sem)=([IVX0-9]+)/i.exec(location.href);
+                    semester = m ? m[1] : null;
+                }
+
+                const danger = Array.from(document.querySelectorAll('span.text-danger')).map(s => s.textContent);
+                const remarks = danger.some(t => t.includes('FAIL')) ? 'FAIL'
+                        : danger.some(t => t.includes('ABSENT')) ? 'ABSENT' : 'PASS';
+
+                const course = cellOf('Course Name', 1);
+                return {
+                    layout: 'MODERN',
+                    profile: {
+                        name: cellOf('Student Name', 1),
+                        father: cellOf('Father', 1),
+                        mother: cellOf('Mother', 1) ?? cellOf('Father', 3),
+                        branch: course ? course.replace(/^\\d+\\s*-\\s*/, '').trim() : null
+                    },
+                    sgpa: sgpaRow ? Array.from(sgpaRow.querySelectorAll('td, th')).map(c => c.innerText) : null,
+                    semester: semester,
+                    remarks: remarks
+                };
+            }
+            """;
+
+    // Picks the layout in-page and classifies the page with the same rules as PageReadinessProbe
+    private static final String EXTRACTION_SCRIPT = """
+            () => {
+                const legacy = %s;
+                const modern = %s;
+                const result = document.getElementById('ContentPlaceHolder1_GridView3') ? legacy() : modern();
+
+                const name = result.profile.name;
+                const table = Array.from(document.querySelectorAll('table'))
+                        .find(t => t.textContent.includes('Subject Code'));
+                const rows = table ? table.querySelectorAll('tr').length : 0;
+
+                if (/No Record Found|Invalid Registration|Data Not Available/i.test(document.body.innerText)) result.status = 'NO_RECORD';
+                else if (name === null || !table) result.status = 'UNKNOWN';
+                else if (!name) result.status = 'NAME_EMPTY';
+                else result.status = rows > 2 ? 'READY' : 'EMPTY_TABLE';
+                return result;
+            }
+            """.formatted(LEGACY_LAYOUT, MODERN_LAYOUT);
+
+    /**
+     * Classifies and extracts the current page in a single evaluate call.
+     * Only READY results carry a profile, grades, semester and remarks.
+     */
+    @SuppressWarnings("unchecked")
+    public ExtractedResult extract(Page page, long regNo) {
+        Map<String, Object> snapshot = (Map<String, Object>) page.evaluate(EXTRACTION_SCRIPT);
+        PageStatus status = PageStatus.valueOf(str(snapshot.get("status")));
+        if (status != PageStatus.READY) return ExtractedResult.of(status);
+        boolean isLegacy = "LEGACY".equals(snapshot.get("layout"));
+
+        Map<String, Object> rawProfile = (Map<String, Object>) snapshot.get("profile");
+        String name = str(rawProfile.get("name"));
+        String semester = str(snapshot.get("semester"));
+        if (name == null || name.isEmpty()) {
+            return new ExtractedResult(PageStatus.READY, null, null, semester, null);
+        }
+
+        StudentInformations profile = new StudentInformations(regNo, name,
+                str(rawProfile.get("father")), str(rawProfile.get("mother")), "B.Tech", str(rawProfile.get("branch")));
+
+        List<String> sgpaCells = (List<String>) snapshot.get("sgpa");
+        StudentGrade grades = (sgpaCells != null) ? ExtractedResult.gradesFromCells(sgpaCells, isLegacy ? 0 : 1) : null;
+
+        return new ExtractedResult(PageStatus.READY, profile, grades, semester, str(snapshot.get("remarks")));
+    }
+
+    private String str(Object value) {
+        return (value != null) ? value.toString() : null;
+    }
+}
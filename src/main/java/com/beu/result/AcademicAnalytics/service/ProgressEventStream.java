@@ -0,0 +1,184 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events feed of per-record progress for one dashboard.
+ * <p>
+ * Pipeline threads only {@link #publish} into a bounded ring buffer; a single flusher thread
+ * pushes whatever arrived since the last flush to every subscriber as one {@code progress}
+ * message every {@code flushMillis}, together with a snapshot of the aggregate counters.
+ * However fast records finish, each client gets at most one message per interval.
+ * Message ids are the newest event id they contain, so a reconnecting {@code EventSource}
+ * (which sends {@code Last-Event-ID}) is replayed the buffered events it missed.
+ * </p>
+ */
+public class ProgressEventStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProgressEventStream.class);
+
+    /** One finished record. {@code elapsedMillis} is null where the pipeline does not time it. */
+    public record ProgressEvent(long id, Long regNo, String outcome, String message, Long elapsedMillis, long timestamp) {}
+
+    /** Payload of one SSE message. */
+    public record ProgressMessage(Object snapshot, List<ProgressEvent> events) {}
+
+    private final String name;
+    private final Supplier<Object> snapshot;
+    private final int historySize;
+    private final long flushMillis;
+    private final long heartbeatMillis;
+    private final long emitterTimeoutMillis;
+
+    private final ArrayDeque<ProgressEvent> history = new ArrayDeque<>();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private long nextEventId = 1;
+    private volatile boolean changed = false;
+
+    // Flusher-thread state
+    private long lastSentId = 0;
+    private long lastSentAt = 0;
+    private ScheduledExecutorService flusher;
+
+    public ProgressEventStream(String name, Supplier<Object> snapshot, int historySize,
+                               long flushMillis, long heartbeatMillis, long emitterTimeoutMillis) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.historySize = Math.max(1, historySize);
+        this.flushMillis = Math.max(50, flushMillis);
+        this.heartbeatMillis = Math.max(this.flushMillis, heartbeatMillis);
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    public void start() {
+        lastSentAt = System.currentTimeMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "progress-stream-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (flusher != null) flusher.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+    // ==========================================
+    // PRODUCERS
+    // ==========================================
+
+    public void publish(Long regNo, String outcome, String message, Long elapsedMillis) {
+        synchronized (history) {
+            history.addLast(new ProgressEvent(nextEventId++, regNo, outcome, message, elapsedMillis, System.currentTimeMillis()));
+            if (history.size() > historySize) history.removeFirst();
+        }
+        changed = true;
+    }
+
+    /** Job-level state changed without a record finishing (queued, started, finished). */
+    public void markChanged() {
+        changed = true;
+    }
+
+    // ==========================================
+    // SUBSCRIBERS
+    // ==========================================
+
+    /**
+     * Registers a client and immediately sends the current snapshot with the buffered events
+     * after {@code lastEventId} (all buffered events for a first connection).
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        long after = parseEventId(lastEventId);
+        List<ProgressEvent> missed = eventsAfter(after);
+        long id = missed.isEmpty() ? Math.max(after, newestEventId()) : missed.get(missed.size() - 1).id();
+        if (send(emitter, id, new ProgressMessage(snapshot.get(), missed))) {
+            emitters.add(emitter);
+        }
+        return emitter;
+    }
+
+    private void flush() {
+        try {
+            if (emitters.isEmpty()) return;
+            long now = System.currentTimeMillis();
+            boolean dirty = changed;
+            List<ProgressEvent> fresh = eventsAfter(lastSentId);
+            if (!dirty && fresh.isEmpty() && now - lastSentAt < heartbeatMillis) return;
+            changed = false;
+
+            long id = fresh.isEmpty() ? Math.max(lastSentId, newestEventId()) : fresh.get(fresh.size() - 1).id();
+            ProgressMessage message = new ProgressMessage(snapshot.get(), fresh);
+            for (SseEmitter emitter : emitters) {
+                if (!send(emitter, id, message)) emitters.remove(emitter);
+            }
+            lastSentId = id;
+            lastSentAt = now;
+        } catch (RuntimeException e) {
+            // Never let one bad flush cancel the scheduled task
+            LOG.warn("Progress stream '{}' flush failed: {}", name, e.getMessage());
+        }
+    }
+
+    private boolean send(SseEmitter emitter, long id, ProgressMessage message) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").id(String.valueOf(id)).data(message));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container completes the emitter
+            return false;
+        }
+    }
+
+    private List<ProgressEvent> eventsAfter(long id) {
+        synchronized (history) {
+            List<ProgressEvent> events = new ArrayList<>();
+            for (ProgressEvent event : history) {
+                if (event.id() > id) events.add(event);
+            }
+            return events;
+        }
+    }
+
+    private long newestEventId() {
+        synchronized (history) {
+            return nextEventId - 1;
+        }
+    }
+
+    /** Seconds left at the average rate since {@code sinceMillis}; null until there is a rate. */
+    public static Long etaSeconds(long sinceMillis, int processed, int total) {
+        if (processed <= 0 || total <= processed) return null;
+        long elapsed = System.currentTimeMillis() - sinceMillis;
+        return elapsed * (total - processed) / processed / 1000;
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return 0;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
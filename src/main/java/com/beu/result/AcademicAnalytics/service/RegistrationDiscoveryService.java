@@ -0,0 +1,268 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
+import com.beu.result.AcademicAnalytics.config.UrlTemplate;
+import com.beu.result.AcademicAnalytics.entity.DiscoveredRegistration;
+import com.beu.result.AcademicAnalytics.entity.RegistrationBlock;
+import com.beu.result.AcademicAnalytics.repository.DiscoveredRegistrationRepository;
+import com.beu.result.AcademicAnalytics.repository.RegistrationBlockRepository;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Learns which registration numbers actually exist before a full ingestion run.
+ * <p>
+ * Real registration numbers are sparse: each college/branch block (see {@link #prefixOf})
+ * is only populated up to its intake, plus a few islands such as lateral-entry serials.
+ * Discovery probes every sub-block of {@code discovery.sub-block-size} serials with the
+ * cheapest fetch available (plain HTTP for legacy pages, readiness-only for browser pages)
+ * and abandons a sub-block after {@code discovery.miss-threshold} consecutive NO_RECORD pages.
+ * The registrations found are stored per link and block and can restrict later ingestion jobs
+ * on the same link.
+ * </p>
+ * <p>
+ * Discovery is not an ingestion job and does not go through the job scheduler; it has its own
+ * {@code discovery.max-concurrent-runs} slots, so probes and ingestion jobs run side by side
+ * and only share the browser pool.
+ * </p>
+ */
+@Service
+public class RegistrationDiscoveryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrationDiscoveryService.class);
+
+    private final ResultSourceConfig sourceConfig;
+    private final LegacyPortalFetcher legacyFetcher;
+    private final BrowserPool browserPool;
+    private final PageReadinessProbe readinessProbe;
+    private final DiscoveryStatus discoveryStatus;
+    private final RegistrationBlockRepository blockRepository;
+    private final DiscoveredRegistrationRepository discoveredRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int missThreshold;
+    private final int subBlockSize;
+    private final int parallelism;
+    private final Semaphore runSlots;
+
+    public RegistrationDiscoveryService(ResultSourceConfig sourceConfig,
+                                        LegacyPortalFetcher legacyFetcher,
+                                        BrowserPool browserPool,
+                                        PageReadinessProbe readinessProbe,
+                                        DiscoveryStatus discoveryStatus,
+                                        RegistrationBlockRepository blockRepository,
+                                        DiscoveredRegistrationRepository discoveredRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${discovery.miss-threshold:10}") int missThreshold,
+                                        @Value("${discovery.sub-block-size:100}") int subBlockSize,
+                                        @Value("${discovery.parallelism:4}") int parallelism,
+                                        @Value("${discovery.max-concurrent-runs:1}") int maxConcurrentRuns) {
+        this.sourceConfig = sourceConfig;
+        this.legacyFetcher = legacyFetcher;
+        this.browserPool = browserPool;
+        this.readinessProbe = readinessProbe;
+        this.discoveryStatus = discoveryStatus;
+        this.blockRepository = blockRepository;
+        this.discoveredRepository = discoveredRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.missThreshold = Math.max(1, missThreshold);
+        this.subBlockSize = Math.max(1, subBlockSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.runSlots = new Semaphore(Math.max(1, maxConcurrentRuns));
+    }
+
+    /** College/branch block of a registration number: everything but the 3-digit serial. */
+    public static long prefixOf(long regNo) {
+        return regNo / 1000;
+    }
+
+    /** Slice of one prefix block covered by the requested range. */
+    private record Block(long prefix, long from, long to) {}
+
+    /** Claims a run slot for {@link #discoverRange}; false while every slot is taken. */
+    public boolean tryReserveRun() {
+        return runSlots.tryAcquire();
+    }
+
+    /** Probes the range in the background and releases the slot taken by {@link #tryReserveRun}. */
+    @Async
+    public void discoverRange(String linkKeyOrUrl, long startReg, long endReg) {
+        try {
+            probeRange(linkKeyOrUrl, startReg, endReg);
+        } finally {
+            runSlots.release();
+        }
+    }
+
+    private void probeRange(String linkKeyOrUrl, long startReg, long endReg) {
+        UrlTemplate urlTemplate = sourceConfig.resolve(linkKeyOrUrl);
+        if (urlTemplate == null) {
+            LOG.error("Discovery Aborted: Invalid Link Key or URL '{}'", linkKeyOrUrl);
+            return;
+        }
+
+        discoveryStatus.probeStarted((int) (endReg - startReg + 1));
+
+        Queue<Block> blocks = new ConcurrentLinkedQueue<>();
+        for (long from = startReg; from <= endReg; ) {
+            long to = Math.min(endReg, prefixOf(from) * 1000 + 999);
+            blocks.add(new Block(prefixOf(from), from, to));
+            from = to + 1;
+        }
+
+        int workers = Math.min(parallelism, blocks.size());
+        LOG.info("Discovery started for {} - {} ({} blocks, {} probes in parallel)", startReg, endReg, blocks.size(), workers);
+
+        AtomicInteger sequence = new AtomicInteger(1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "discovery-worker-" + sequence.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    Block block;
+                    while ((block = blocks.poll()) != null && !Thread.currentThread().isInterrupted()) {
+                        probeBlock(linkKeyOrUrl, urlTemplate, block);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Discovery worker terminated abnormally", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Discovery interrupted");
+        } finally {
+            pool.shutdownNow();
+            discoveryStatus.probeFinished();
+        }
+    }
+
+    // ==========================================
+    // BLOCK PROBING
+    // ==========================================
+
+    private void probeBlock(String linkKey, UrlTemplate urlTemplate, Block block) {
+        List<DiscoveredRegistration> hits = new ArrayList<>();
+        try (ProbeEngine engine = new ProbeEngine()) {
+            for (long subStart = block.from(); subStart <= block.to(); subStart += subBlockSize) {
+                long subEnd = Math.min(block.to(), subStart + subBlockSize - 1);
+                int misses = 0;
+
+                for (long regNo = subStart; regNo <= subEnd; regNo++) {
+                    if (Thread.currentThread().isInterrupted()) return;
+                    long probeStart = System.currentTimeMillis();
+                    PageStatus status = probe(engine, urlTemplate, regNo);
+
+                    if (status == PageStatus.NO_RECORD) {
+                        misses++;
+                    } else {
+                        // Anything but a definite miss is kept, so ingestion gets to look at it
+                        misses = 0;
+                        hits.add(new DiscoveredRegistration(linkKey, block.prefix(), regNo, status.name()));
+                    }
+                    discoveryStatus.recordProbed(regNo, status.name(), status != PageStatus.NO_RECORD,
+                            System.currentTimeMillis() - probeStart, "Probe " + regNo + ": " + status);
+
+                    if (misses >= missThreshold && regNo < subEnd) {
+                        discoveryStatus.recordSkipped((int) (subEnd - regNo),
+                                "Block " + block.prefix() + ": sub-block exhausted after " + misses + " misses");
+                        break;
+                    }
+                }
+            }
+        }
+
+        saveBlock(linkKey, block, hits);
+        LOG.info("Discovery: block {} has {} registrations in {} - {}", block.prefix(), hits.size(), block.from(), block.to());
+    }
+
+    private PageStatus probe(ProbeEngine engine, UrlTemplate urlTemplate, long regNo) {
+        String targetUrl = urlTemplate.expand(regNo);
+        try {
+            if (legacyFetcher.supports(urlTemplate.pattern())) {
+                PageStatus status = legacyFetcher.fetch(targetUrl, regNo).status();
+                if (status != PageStatus.UNKNOWN) return status;
+            }
+            return readinessProbe.navigateAndAwait(engine.page(), targetUrl, 30000, 15000).status();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PageStatus.UNKNOWN;
+        } catch (Exception e) {
+            LOG.warn("Probe failed for {}: {}", regNo, e.getMessage());
+            engine.close(); // a fresh lease for the next probe
+            return PageStatus.UNKNOWN;
+        }
+    }
+
+    /** Replaces the block's previous discovery results on this link for the probed range. */
+    private void saveBlock(String linkKey, Block block, List<DiscoveredRegistration> hits) {
+        transactionTemplate.executeWithoutResult(status -> {
+            discoveredRepository.deleteProbedRange(linkKey, block.prefix(), block.from(), block.to());
+            discoveredRepository.saveAll(hits);
+
+            RegistrationBlock summary = blockRepository.findById(new RegistrationBlock.Key(linkKey, block.prefix()))
+                    .orElseGet(() -> new RegistrationBlock(linkKey, block.prefix()));
+            summary.setProbedFrom(summary.getProbedFrom() == null ? block.from() : Math.min(summary.getProbedFrom(), block.from()));
+            summary.setProbedTo(summary.getProbedTo() == null ? block.to() : Math.max(summary.getProbedTo(), block.to()));
+            summary.setHitCount((int) discoveredRepository.countByLinkKeyAndPrefix(linkKey, block.prefix()));
+            summary.setProbedAt(LocalDateTime.now());
+            blockRepository.save(summary);
+        });
+    }
+
+    /**
+     * Browser page for the probes of one block, leased from the pool only when a
+     * probe cannot be answered over HTTP.
+     */
+    private class ProbeEngine implements AutoCloseable {
+        private BrowserPool.Lease lease;
+        private Page page;
+
+        Page page() throws InterruptedException {
+            if (page == null) {
+                lease = browserPool.acquire(1280, 720);
+                try {
+                    page = lease.context().newPage();
+                } catch (PlaywrightException e) {
+                    close();
+                    throw e;
+                }
+            }
+            lease.pageServed();
+            return page;
+        }
+
+        @Override
+        public void close() {
+            if (lease != null) lease.close();
+            lease = null;
+            page = null;
+        }
+    }
+}
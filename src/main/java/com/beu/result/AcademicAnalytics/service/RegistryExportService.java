@@ -0,0 +1,210 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.repository.RegistryRow;
+import com.beu.result.AcademicAnalytics.repository.StudentFilter;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the filtered student registry to a spreadsheet or CSV with flat memory use.
+ * <p>
+ * Rows come from {@link StudentInfoRepository#streamRegistry} in keyset chunks of
+ * {@code export.chunk-size}. The XLSX path uses an {@link SXSSFWorkbook} that keeps only the
+ * last {@code export.row-window} rows in memory and spills the rest to a compressed temp file;
+ * column widths are taken from the first {@code export.width-sample-rows} rows instead of
+ * {@code autoSizeColumn}, which measures every cell of a column. The CSV path writes each row
+ * straight to the response.
+ * </p>
+ */
+@Service
+public class RegistryExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryExportService.class);
+
+    /** Students that fit one sheet below the header row. */
+    public static final long XLSX_MAX_ROWS = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    private static final String[] COLUMNS = {"Reg No", "Student Name", "Branch", "Sem 1", "Sem 2", "Sem 3", "Sem 4", "Sem 5", "Sem 6", "Sem 7", "Sem 8", "CGPA"};
+    private static final int FIRST_SEM_COLUMN = 3;
+    private static final int CGPA_COLUMN = 11;
+    private static final int MAX_COLUMN_CHARS = 60;
+
+    private final StudentInfoRepository studentRepository;
+    private final int chunkSize;
+    private final int rowWindow;
+    private final int widthSampleRows;
+
+    public RegistryExportService(StudentInfoRepository studentRepository,
+                                 @Value("${export.chunk-size:2000}") int chunkSize,
+                                 @Value("${export.row-window:500}") int rowWindow,
+                                 @Value("${export.width-sample-rows:500}") int widthSampleRows) {
+        this.studentRepository = studentRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.rowWindow = Math.max(1, rowWindow);
+        this.widthSampleRows = Math.max(1, widthSampleRows);
+    }
+
+    // ==========================================
+    // XLSX
+    // ==========================================
+
+    /** Writes the registry as an .xlsx workbook. Returns the number of students written. */
+    public long writeXlsx(StudentFilter filter, boolean ranked, boolean showBacklog, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        long rows = 0;
+        try (Stream<RegistryRow> registry = studentRepository.streamRegistry(filter, ranked, chunkSize)) {
+            SXSSFSheet sheet = workbook.createSheet("Academic Registry");
+
+            // Header Style
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font font = workbook.createFont();
+            font.setBold(true);
+            headerStyle.setFont(font);
+
+            int[] widths = new int[COLUMNS.length];
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(COLUMNS[i]);
+                cell.setCellStyle(headerStyle);
+                widths[i] = COLUMNS[i].length();
+            }
+
+            Iterator<RegistryRow> iterator = registry.iterator();
+            while (iterator.hasNext()) {
+                RegistryRow student = iterator.next();
+                Row row = sheet.createRow((int) ++rows);
+                Object[] values = cellValues(student, showBacklog);
+                for (int i = 0; i < values.length; i++) {
+                    setCell(row, i, values[i]);
+                    if (rows <= widthSampleRows) widths[i] = Math.max(widths[i], displayLength(values[i]));
+                }
+            }
+
+            for (int i = 0; i < COLUMNS.length; i++) {
+                sheet.setColumnWidth(i, (Math.min(widths[i], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        LOG.info("Excel export completed. Rows: {}, View: {} ({}ms)",
+                rows, showBacklog ? "Backlogs" : "Grades", System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private static void setCell(Row row, int column, Object value) {
+        if (value instanceof Long number) {
+            row.createCell(column).setCellValue(number);
+        } else if (value instanceof Double number) {
+            row.createCell(column).setCellValue(number);
+        } else if (value != null) {
+            row.createCell(column).setCellValue((String) value);
+        }
+    }
+
+    // ==========================================
+    // CSV
+    // ==========================================
+
+    /** Writes the registry as UTF-8 CSV (RFC 4180 quoting). Returns the number of students written. */
+    public long writeCsv(StudentFilter filter, boolean ranked, boolean showBacklog, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try (Stream<RegistryRow> registry = studentRepository.streamRegistry(filter, ranked, chunkSize)) {
+            writeCsvLine(writer, COLUMNS);
+
+            Iterator<RegistryRow> iterator = registry.iterator();
+            while (iterator.hasNext()) {
+                writeCsvLine(writer, cellValues(iterator.next(), showBacklog));
+                rows++;
+            }
+        }
+        writer.flush();
+        LOG.info("CSV export completed. Rows: {}, View: {} ({}ms)",
+                rows, showBacklog ? "Backlogs" : "Grades", System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) return "";
+        String text = value instanceof Double number ? formatGrade(number) : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    // ==========================================
+    // ROW LAYOUT
+    // ==========================================
+
+    /**
+     * The twelve cells of one student: SGPA per semester (or the backlog remarks when
+     * {@code showBacklog} is set and a backlog row exists), CGPA, "NA" for a missing grade
+     * and "-" across the board when the student has no grade row.
+     */
+    private static Object[] cellValues(RegistryRow student, boolean showBacklog) {
+        Object[] values = new Object[COLUMNS.length];
+        values[0] = student.registrationNumber();
+        values[1] = student.studentName();
+        values[2] = student.branch();
+
+        if (!student.graded()) {
+            for (int i = FIRST_SEM_COLUMN; i <= CGPA_COLUMN; i++) values[i] = "-";
+            return values;
+        }
+        for (int sem = 0; sem < RegistryRow.SEMESTERS; sem++) {
+            values[FIRST_SEM_COLUMN + sem] = (showBacklog && student.hasBacklog())
+                    ? student.remarks()[sem]
+                    : gradeOrNa(student.sgpa()[sem]);
+        }
+        values[CGPA_COLUMN] = gradeOrNa(student.cgpa());
+        return values;
+    }
+
+    private static Object gradeOrNa(Double grade) {
+        return grade != null ? grade : "NA";
+    }
+
+    private static int displayLength(Object value) {
+        if (value == null) return 0;
+        return value instanceof Double number ? formatGrade(number).length() : value.toString().length();
+    }
+
+    /** Two decimals, as the portal prints grades; String.format would dominate a large CSV export. */
+    private static String formatGrade(double grade) {
+        long hundredths = Math.round(grade * 100);
+        long fraction = hundredths % 100;
+        return (hundredths / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
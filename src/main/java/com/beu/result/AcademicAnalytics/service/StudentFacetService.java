@@ -0,0 +1,195 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.repository.FacetCell;
+import com.beu.result.AcademicAnalytics.repository.StudentFilter;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cached batch year, branch and college facets of the student registry, with student counts.
+ * <p>
+ * One GROUP BY over {@code student_informations} yields a count per (batch year, branch code,
+ * college code) cell; every dropdown and count is summed from those cells in memory, so page
+ * views never scan the table. Each facet is counted under the other active filters (the branch
+ * counts of a selected batch year are that batch's students per branch). The ingestion writer
+ * calls {@link #invalidate()} after a commit that added students or changed a branch name, and
+ * the next lookup reloads. Lookups are counted on {@code registry.facets.cache} by
+ * {@code result} (hit, miss); {@code registry.facets.cache.version} shows the current version.
+ * </p>
+ */
+@Service
+public class StudentFacetService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StudentFacetService.class);
+
+    private static final String CACHE_METER = "registry.facets.cache";
+
+    /** One dropdown entry: the filter value, its display name and the number of matching students. */
+    public record FacetOption(int value, String name, long count) {
+
+        /** Display name with the student count, e.g. "Computer Science (412)". */
+        public String label() {
+            return name + " (" + count + ")";
+        }
+    }
+
+    /** One load of the counts: every non-empty cell and one stored name per branch code. */
+    private record FacetSnapshot(long version, List<FacetCell> cells, Map<Integer, String> branchNames) {}
+
+    private final StudentInfoRepository studentRepository;
+    private final AtomicLong version = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile FacetSnapshot snapshot;
+
+    public StudentFacetService(StudentInfoRepository studentRepository, MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.hits = Counter.builder(CACHE_METER).description("Registry facet lookups, by cache outcome")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(CACHE_METER).description("Registry facet lookups, by cache outcome")
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder(CACHE_METER + ".version", version, AtomicLong::get)
+                .description("Invalidations of the registry facet cache").register(meterRegistry);
+    }
+
+    // ==========================================
+    // FACETS
+    // ==========================================
+
+    /** Batch years, newest first, counted under the filter's branch and college. */
+    public List<FacetOption> batchYears(StudentFilter filter) {
+        return facet(snapshot(), new StudentFilter(null, filter.branchCode(), filter.collegeCode(), null),
+                FacetCell::batchYear, year -> "Batch " + (2000 + year), Comparator.reverseOrder());
+    }
+
+    /**
+     * Branch codes, by name, counted under the filter's batch year and college. A name stored
+     * for more than one code carries the code, e.g. "Civil [101]", so the entries stay apart.
+     */
+    public List<FacetOption> branches(StudentFilter filter) {
+        FacetSnapshot facets = snapshot();
+        Map<Integer, String> names = facets.branchNames();
+        Map<String, Long> codesPerName = names.values().stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        return facet(facets, new StudentFilter(filter.batchYear(), null, filter.collegeCode(), null),
+                FacetCell::branchCode,
+                code -> {
+                    String name = branchName(names, code);
+                    return codesPerName.getOrDefault(name, 0L) > 1 ? name + " [" + code + "]" : name;
+                },
+                Comparator.comparing((Integer code) -> branchName(names, code)).thenComparing(Comparator.naturalOrder()));
+    }
+
+    /** College codes, ascending, counted under the filter's batch year and branch. */
+    public List<FacetOption> colleges(StudentFilter filter) {
+        return facet(snapshot(), new StudentFilter(filter.batchYear(), filter.branchCode(), null, null),
+                FacetCell::collegeCode, code -> String.format("%03d", code), Comparator.naturalOrder());
+    }
+
+    /** Stored branch name of a code; "Branch 105" when no student of that code has one. */
+    public String branchName(int branchCode) {
+        return branchName(snapshot().branchNames(), branchCode);
+    }
+
+    /**
+     * Number of students matching the filter, straight from the cache. Empty when the filter
+     * searches by name, which only the database can count.
+     */
+    public OptionalLong count(StudentFilter filter) {
+        if (filter.name() != null) return OptionalLong.empty();
+        long total = 0;
+        for (FacetCell cell : snapshot().cells()) {
+            if (matches(cell, filter)) total += cell.count();
+        }
+        return OptionalLong.of(total);
+    }
+
+    /**
+     * Every value of one facet among the cells matching {@code scope}. Values that only exist
+     * outside the scope are listed with a count of 0, so a selection never drops out of its dropdown.
+     */
+    private static List<FacetOption> facet(FacetSnapshot facets, StudentFilter scope, Function<FacetCell, Integer> value,
+                                           Function<Integer, String> name, Comparator<Integer> order) {
+        Map<Integer, Long> counts = new TreeMap<>(order);
+        for (FacetCell cell : facets.cells()) {
+            Integer key = value.apply(cell);
+            if (key == null) continue;
+            counts.merge(key, matches(cell, scope) ? cell.count() : 0L, Long::sum);
+        }
+        List<FacetOption> options = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> options.add(new FacetOption(key, name.apply(key), count)));
+        return options;
+    }
+
+    private static boolean matches(FacetCell cell, StudentFilter filter) {
+        return matches(filter.batchYear(), cell, FacetCell::batchYear)
+                && matches(filter.branchCode(), cell, FacetCell::branchCode)
+                && matches(filter.collegeCode(), cell, FacetCell::collegeCode);
+    }
+
+    private static boolean matches(Integer selected, FacetCell cell, Function<FacetCell, Integer> value) {
+        return selected == null || selected.equals(value.apply(cell));
+    }
+
+    private static String branchName(Map<Integer, String> names, Integer code) {
+        String name = names.get(code);
+        return name != null ? name : "Branch " + code;
+    }
+
+    // ==========================================
+    // CACHE
+    // ==========================================
+
+    /** Drops the cached counts; the next lookup reads them again. Call after students are added or renamed. */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private FacetSnapshot snapshot() {
+        FacetSnapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return reload();
+    }
+
+    /**
+     * Loads the counts under the version read before the query. A commit that lands while it
+     * runs bumps the version again, so a stale snapshot is never served twice.
+     */
+    private synchronized FacetSnapshot reload() {
+        long loadVersion = version.get();
+        FacetSnapshot current = snapshot;
+        if (current != null && current.version() == loadVersion) return current; // loaded by a concurrent caller
+
+        long start = System.currentTimeMillis();
+        List<FacetCell> cells = List.copyOf(studentRepository.countFacetCells());
+        Map<Integer, String> branchNames = new HashMap<>();
+        for (FacetCell cell : cells) {
+            if (cell.branchCode() == null || cell.branchName() == null) continue;
+            branchNames.merge(cell.branchCode(), cell.branchName(), (a, b) -> a.compareTo(b) <= 0 ? a : b);
+        }
+        FacetSnapshot loaded = new FacetSnapshot(loadVersion, cells, Map.copyOf(branchNames));
+        snapshot = loaded;
+        LOG.debug("Loaded registry facets v{}: {} cells in {}ms", loadVersion, cells.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+}
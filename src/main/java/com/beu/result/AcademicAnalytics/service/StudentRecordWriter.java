@@ -0,0 +1,566 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
+import com.beu.result.AcademicAnalytics.entity.IngestionRecordOutcome;
+import com.beu.result.AcademicAnalytics.entity.StudentBacklog;
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.beu.result.AcademicAnalytics.entity.StudentSyncState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage for ingested records.
+ * <p>
+ * Ingestion workers hand parsed results to {@link #submit}; a single writer thread drains
+ * the bounded queue and flushes up to {@code ingestion.writer.batch-size} records per
+ * transaction. Existing rows for a batch are loaded with one fetch-joined SELECT, merged in
+ * memory, and written back through Hibernate's JDBC batching. SQLite only has one write
+ * lock, so one batched writer beats many workers contending for it row by row.
+ * </p>
+ * <p>
+ * The same transaction records each record's outcome and advances the owning job's
+ * checkpoint, so a crash can never leave data committed without its checkpoint or vice versa.
+ * </p>
+ */
+@Component
+public class StudentRecordWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StudentRecordWriter.class);
+
+    /**
+     * One processed registration. {@code result} is only persisted when it is READY with a profile;
+     * the outcome row is written for every record that belongs to a job.
+     */
+    private record PendingRecord(Long jobId, String linkKey, long regNo, ExtractedResult result, String outcome) {
+        boolean hasStudentData() {
+            return result != null && result.status() == PageStatus.READY && result.profile() != null;
+        }
+
+        /** Hashes and sync state are per link: concurrent jobs on two links can share a batch. */
+        StudentSyncState.Key syncKey() {
+            return new StudentSyncState.Key(linkKey, regNo);
+        }
+    }
+
+    /**
+     * Tracks the contiguous completion watermark of a job whose records commit out of order.
+     * A batch first {@link #preview previews} the watermark it would reach, writes that inside
+     * its transaction, and only {@link #complete completes} its records once the commit went
+     * through, so a rolled-back record never counts as done.
+     */
+    static final class JobCheckpoint {
+        private long watermark;
+        private final TreeSet<Long> ahead = new TreeSet<>();
+
+        JobCheckpoint(long watermark, Collection<Long> alreadyDone) {
+            this.watermark = watermark;
+            complete(alreadyDone);
+        }
+
+        /** Watermark once {@code regNos} are complete as well, without recording them. */
+        synchronized long preview(Collection<Long> regNos) {
+            Set<Long> pending = new HashSet<>(regNos);
+            long mark = watermark;
+            while (ahead.contains(mark + 1) || pending.contains(mark + 1)) mark++;
+            return mark;
+        }
+
+        synchronized long complete(Collection<Long> regNos) {
+            for (Long regNo : regNos) {
+                if (regNo > watermark) ahead.add(regNo);
+            }
+            while (ahead.remove(watermark + 1)) watermark++;
+            return watermark;
+        }
+    }
+
+    private final Map<Long, JobCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final PipelineMetrics metrics;
+    private final CohortKpiService kpiService;
+    private final StudentFacetService facetService;
+    private final BlockingQueue<PendingRecord> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    // Submission/commit counters guarded by progressMonitor (used by awaitFlushed)
+    private final Object progressMonitor = new Object();
+    private long submittedCount = 0;
+    private long writtenCount = 0;
+    private boolean writerStopped = false;
+
+    private volatile boolean running = false;
+    private Thread writerThread;
+
+    public StudentRecordWriter(PlatformTransactionManager transactionManager,
+                               PipelineMetrics metrics,
+                               CohortKpiService kpiService,
+                               StudentFacetService facetService,
+                               @Value("${ingestion.writer.queue-capacity:500}") int queueCapacity,
+                               @Value("${ingestion.writer.batch-size:50}") int batchSize,
+                               @Value("${ingestion.writer.linger-ms:200}") long lingerMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.kpiService = kpiService;
+        this.facetService = facetService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMillis = Math.max(10, lingerMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drainLoop, "ingest-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==========================================
+    // PRODUCER API
+    // ==========================================
+
+    /**
+     * Starts tracking the completion watermark of a job.
+     * Records finished in an earlier run of the same job count as already complete.
+     */
+    public void openCheckpoint(IngestionJob job, Collection<Long> alreadyDone) {
+        checkpoints.put(job.getId(), new JobCheckpoint(job.getRangeStart() - 1, alreadyDone));
+    }
+
+    public void closeCheckpoint(Long jobId) {
+        checkpoints.remove(jobId);
+    }
+
+    /**
+     * Queues a processed record. Student data is written when the result is READY;
+     * the outcome is recorded against the job either way. Blocks when the queue is full,
+     * which throttles the workers to the speed of the database.
+     *
+     * @throws IllegalStateException when the writer thread has stopped and the record would never be written
+     */
+    public void submit(IngestionJob job, long regNo, ExtractedResult result, String outcome) throws InterruptedException {
+        PendingRecord record = new PendingRecord(job.getId(), job.getLinkKey(), regNo, result, outcome);
+        synchronized (progressMonitor) {
+            submittedCount++;
+        }
+        while (!queue.offer(record, 1, TimeUnit.SECONDS)) {
+            if (isStopped()) {
+                markWritten(1);
+                throw new IllegalStateException("Record writer stopped, record " + regNo + " was not queued");
+            }
+        }
+    }
+
+    /**
+     * Blocks until every record submitted before this call has been committed (or failed).
+     *
+     * @throws IllegalStateException when the writer thread stopped with records still unwritten
+     */
+    public void awaitFlushed() throws InterruptedException {
+        synchronized (progressMonitor) {
+            long target = submittedCount;
+            while (writtenCount < target) {
+                if (writerStopped) {
+                    throw new IllegalStateException("Record writer stopped with " + (target - writtenCount) + " records unwritten");
+                }
+                progressMonitor.wait(1000);
+            }
+        }
+    }
+
+    private boolean isStopped() {
+        synchronized (progressMonitor) {
+            return writerStopped;
+        }
+    }
+
+    // ==========================================
+    // WRITER LOOP
+    // ==========================================
+
+    private void drainLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingRecord first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flushBatch(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("Record writer interrupted with {} records still queued", queue.size());
+                    return;
+                } finally {
+                    markWritten(batch.size());
+                    batch.clear();
+                }
+            }
+        } finally {
+            // Release producers and awaitFlushed callers; whatever is still queued is never written
+            synchronized (progressMonitor) {
+                writerStopped = true;
+                progressMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void markWritten(int count) {
+        if (count == 0) return;
+        synchronized (progressMonitor) {
+            writtenCount += count;
+            progressMonitor.notifyAll();
+        }
+    }
+
+    private void flushBatch(List<PendingRecord> batch) {
+        // Timed per transaction; the link tag reads "mixed" when concurrent jobs share a batch
+        String linkKey = batch.stream().map(PendingRecord::linkKey).distinct().count() == 1 ? batch.get(0).linkKey() : "mixed";
+        long flushStart = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeRecords(batch));
+            metrics.recordStage(PipelineMetrics.STAGE_DB_WRITE, linkKey, "COMMITTED", System.nanoTime() - flushStart);
+            LOG.debug("Flushed {} ingested records in one transaction", batch.size());
+        } catch (Exception e) {
+            metrics.recordStage(PipelineMetrics.STAGE_DB_WRITE, linkKey, PipelineMetrics.OUTCOME_ERROR, System.nanoTime() - flushStart);
+            // Isolate the offending record(s): retry one record per transaction
+            LOG.warn("Batch flush of {} records failed ({}), retrying individually", batch.size(), e.getMessage());
+            for (PendingRecord record : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writeRecords(List.of(record)));
+                } catch (Exception recordFailure) {
+                    LOG.error("Failed to persist record {}", record.regNo(), recordFailure);
+                }
+            }
+        }
+    }
+
+    private void writeRecords(List<PendingRecord> batch) {
+        Map<StudentSyncState.Key, StudentSyncState> syncStates = loadSyncStates(batch);
+        Map<StudentSyncState.Key, String> hashes = new HashMap<>();
+        batch.stream().filter(PendingRecord::hasStudentData)
+                .forEach(r -> hashes.put(r.syncKey(), r.result().contentHash()));
+
+        writeStudentData(batch.stream().filter(PendingRecord::hasStudentData).toList(), syncStates, hashes);
+        writeSyncStates(batch, syncStates, hashes);
+        writeOutcomes(batch.stream().filter(r -> r.jobId() != null).toList());
+    }
+
+    /**
+     * Upserts profile, grade and backlog rows for a batch inside the current transaction.
+     * Existing rows are preloaded with a single fetch-joined SELECT and updated through
+     * dirty checking; new rows are persisted and written by Hibernate's batched INSERTs at commit.
+     * Records whose content hash matches the last sync of the same link are left untouched.
+     * The dashboard aggregates move by the difference between the rows before and after the merge;
+     * the dropdown facets are reloaded after commit when a student was added or changed branch.
+     */
+    private void writeStudentData(List<PendingRecord> batch,
+                                  Map<StudentSyncState.Key, StudentSyncState> syncStates,
+                                  Map<StudentSyncState.Key, String> hashes) {
+        if (batch.isEmpty()) return;
+        List<Long> ids = batch.stream().map(PendingRecord::regNo).distinct().toList();
+
+        Map<Long, StudentInformations> profiles = new HashMap<>();
+        Map<Long, StudentGrade> grades = new HashMap<>();
+        Map<Long, StudentBacklog> backlogs = new HashMap<>();
+        entityManager.createQuery("""
+                        SELECT s FROM StudentInformations s
+                        LEFT JOIN FETCH s.grade g
+                        LEFT JOIN FETCH g.backlog
+                        WHERE s.registrationNumber IN :ids""", StudentInformations.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(s -> {
+                    profiles.put(s.getRegistrationNumber(), s);
+                    if (s.getGrade() != null) {
+                        grades.put(s.getRegistrationNumber(), s.getGrade());
+                        if (s.getGrade().getBacklog() != null) backlogs.put(s.getRegistrationNumber(), s.getGrade().getBacklog());
+                    }
+                });
+        Map<Long, CohortKpiService.Contribution> before = contributions(ids, profiles, grades);
+
+        boolean facetsChanged = false;
+        for (PendingRecord record : batch) {
+            StudentSyncState lastSync = syncStates.get(record.syncKey());
+            if (lastSync != null && hashes.get(record.syncKey()).equals(lastSync.getContentHash())
+                    && grades.containsKey(record.regNo())) {
+                LOG.debug("Unchanged result for {}, skipping write", record.regNo());
+                continue;
+            }
+
+            ExtractedResult result = record.result();
+            StudentInformations existing = profiles.get(record.regNo());
+            String branchBefore = existing != null ? existing.getBranch() : null;
+            StudentInformations profile = mergeProfile(profiles, result.profile());
+            if (existing == null || !Objects.equals(branchBefore, profile.getBranch())) facetsChanged = true;
+
+            StudentGrade grade = grades.get(record.regNo());
+            if (result.grades() != null) {
+                grade = mergeGrades(grade, result.grades(), profile, result.semester());
+                grades.put(record.regNo(), grade);
+            }
+
+            if (result.semester() != null) {
+                if (grade == null) {
+                    LOG.warn("Skipping backlog for {}: no grade row to attach to", record.regNo());
+                    continue;
+                }
+                StudentBacklog backlog = mergeBacklog(backlogs.get(record.regNo()), grade, result.semester(), result.remarks());
+                backlogs.put(record.regNo(), backlog);
+            }
+        }
+
+        kpiService.applyChanges(before, contributions(ids, profiles, grades));
+        if (facetsChanged) invalidateFacetsAfterCommit();
+    }
+
+    /** Readers must not reload the facets before the new rows are visible to them. */
+    private void invalidateFacetsAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                facetService.invalidate();
+            }
+        });
+    }
+
+    private Map<Long, CohortKpiService.Contribution> contributions(List<Long> ids,
+                                                                   Map<Long, StudentInformations> profiles,
+                                                                   Map<Long, StudentGrade> grades) {
+        Map<Long, CohortKpiService.Contribution> contributions = new HashMap<>();
+        for (Long regNo : ids) {
+            CohortKpiService.Contribution contribution = CohortKpiService.Contribution.of(profiles.get(regNo), grades.get(regNo));
+            if (contribution != null) contributions.put(regNo, contribution);
+        }
+        return contributions;
+    }
+
+    private Map<StudentSyncState.Key, StudentSyncState> loadSyncStates(List<PendingRecord> batch) {
+        Map<StudentSyncState.Key, StudentSyncState> states = new HashMap<>();
+        List<PendingRecord> linked = batch.stream().filter(r -> r.linkKey() != null).toList();
+        if (linked.isEmpty()) return states;
+
+        entityManager.createQuery("""
+                        SELECT s FROM StudentSyncState s
+                        WHERE s.linkKey IN :links AND s.registrationNumber IN :ids""", StudentSyncState.class)
+                .setParameter("links", linked.stream().map(PendingRecord::linkKey).distinct().toList())
+                .setParameter("ids", linked.stream().map(PendingRecord::regNo).distinct().toList())
+                .getResultList()
+                .forEach(s -> states.put(new StudentSyncState.Key(s.getLinkKey(), s.getRegistrationNumber()), s));
+        return states;
+    }
+
+    /**
+     * Records the latest outcome (and content hash, for READY pages) per link and registration.
+     * Transient failures do not overwrite a previously good sync state.
+     */
+    private void writeSyncStates(List<PendingRecord> batch,
+                                 Map<StudentSyncState.Key, StudentSyncState> syncStates,
+                                 Map<StudentSyncState.Key, String> hashes) {
+        for (PendingRecord record : batch) {
+            if (record.linkKey() == null || !IngestionCheckpointService.TERMINAL_OUTCOMES.contains(record.outcome())) continue;
+
+            StudentSyncState.Key key = record.syncKey();
+            StudentSyncState state = syncStates.get(key);
+            if (state == null) {
+                state = new StudentSyncState(record.linkKey(), record.regNo());
+                entityManager.persist(state);
+                syncStates.put(key, state);
+            }
+            state.setOutcome(record.outcome());
+            state.setContentHash(hashes.get(key));
+            state.setSyncedAt(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Upserts the per-record outcome rows and writes the watermark each job reaches with them.
+     * The in-memory checkpoints only advance after commit: a rolled-back batch is retried record
+     * by record, and a record that fails there too must keep the watermark below it.
+     */
+    private void writeOutcomes(List<PendingRecord> batch) {
+        if (batch.isEmpty()) return;
+
+        Map<IngestionRecordOutcome.Key, IngestionRecordOutcome> existing = new HashMap<>();
+        entityManager.createQuery("""
+                        SELECT o FROM IngestionRecordOutcome o
+                        WHERE o.jobId IN :jobs AND o.registrationNumber IN :ids""", IngestionRecordOutcome.class)
+                .setParameter("jobs", batch.stream().map(PendingRecord::jobId).distinct().toList())
+                .setParameter("ids", batch.stream().map(PendingRecord::regNo).distinct().toList())
+                .getResultList()
+                .forEach(o -> existing.put(new IngestionRecordOutcome.Key(o.getJobId(), o.getRegistrationNumber()), o));
+
+        Map<Long, List<Long>> completedPerJob = new HashMap<>();
+        for (PendingRecord record : batch) {
+            IngestionRecordOutcome.Key key = new IngestionRecordOutcome.Key(record.jobId(), record.regNo());
+            IngestionRecordOutcome row = existing.get(key);
+            if (row == null) {
+                row = new IngestionRecordOutcome(record.jobId(), record.regNo(), record.outcome());
+                entityManager.persist(row);
+                existing.put(key, row);
+            } else {
+                row.setOutcome(record.outcome());
+                row.setRecordedAt(LocalDateTime.now());
+            }
+
+            completedPerJob.computeIfAbsent(record.jobId(), k -> new ArrayList<>()).add(record.regNo());
+        }
+
+        Map<Long, Long> watermarks = new HashMap<>();
+        Map<JobCheckpoint, List<Long>> completions = new HashMap<>();
+        completedPerJob.forEach((jobId, regNos) -> {
+            JobCheckpoint checkpoint = checkpoints.get(jobId);
+            if (checkpoint == null) return;
+            watermarks.put(jobId, checkpoint.preview(regNos));
+            completions.put(checkpoint, regNos);
+        });
+        if (!completions.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    completions.forEach(JobCheckpoint::complete);
+                }
+            });
+        }
+
+        watermarks.forEach((jobId, watermark) -> entityManager.createQuery("""
+                        UPDATE IngestionJob j SET j.lastCompletedReg = :watermark, j.updatedAt = :now
+                        WHERE j.id = :jobId""")
+                .setParameter("watermark", watermark)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("jobId", jobId)
+                .executeUpdate());
+    }
+
+    // ==========================================
+    // MERGE RULES
+    // ==========================================
+
+    private StudentInformations mergeProfile(Map<Long, StudentInformations> profiles, StudentInformations incoming) {
+        StudentInformations existing = profiles.get(incoming.getRegistrationNumber());
+        if (existing == null) {
+            entityManager.persist(incoming);
+            profiles.put(incoming.getRegistrationNumber(), incoming);
+            return incoming;
+        }
+        existing.setStudentName(incoming.getStudentName());
+        existing.setFatherName(incoming.getFatherName());
+        existing.setMotherName(incoming.getMotherName());
+        existing.setCourse(incoming.getCourse());
+        existing.setBranch(incoming.getBranch());
+        return existing;
+    }
+
+    private StudentGrade mergeGrades(StudentGrade target, StudentGrade newGrades, StudentInformations profile, String incomingSem) {
+        if (target == null) {
+            newGrades.setStudentInformations(profile);
+            entityManager.persist(newGrades);
+            return newGrades;
+        }
+
+        target.setSem1(resolveHigherScore(target.getSem1(), newGrades.getSem1()));
+        target.setSem2(resolveHigherScore(target.getSem2(), newGrades.getSem2()));
+        target.setSem3(resolveHigherScore(target.getSem3(), newGrades.getSem3()));
+        target.setSem4(resolveHigherScore(target.getSem4(), newGrades.getSem4()));
+        target.setSem5(resolveHigherScore(target.getSem5(), newGrades.getSem5()));
+        target.setSem6(resolveHigherScore(target.getSem6(), newGrades.getSem6()));
+        target.setSem7(resolveHigherScore(target.getSem7(), newGrades.getSem7()));
+        target.setSem8(resolveHigherScore(target.getSem8(), newGrades.getSem8()));
+
+        int dbMaxSem = calculateMaxSem(target);
+        int incomingSemIndex = getSemesterOrder(incomingSem);
+
+        if (incomingSemIndex >= dbMaxSem && newGrades.getCgpa() != null) {
+            target.setCgpa(newGrades.getCgpa());
+        }
+        return target;
+    }
+
+    private StudentBacklog mergeBacklog(StudentBacklog backlog, StudentGrade grade, String semester, String remarks) {
+        String valueToSave = (remarks == null || remarks.isEmpty()) ? "PASS" : remarks;
+        String semClean = semester.toUpperCase().replaceAll("[^0-9IVX]", "");
+
+        boolean isNew = (backlog == null);
+        if (isNew) {
+            backlog = new StudentBacklog();
+            backlog.setStudentGrade(grade);
+        }
+
+        switch (semClean) {
+            case "1", "I" -> backlog.setSem1(valueToSave);
+            case "2", "II" -> backlog.setSem2(valueToSave);
+            case "3", "III" -> backlog.setSem3(valueToSave);
+            case "4", "IV" -> backlog.setSem4(valueToSave);
+            case "5", "V" -> backlog.setSem5(valueToSave);
+            case "6", "VI" -> backlog.setSem6(valueToSave);
+            case "7", "VII" -> backlog.setSem7(valueToSave);
+            case "8", "VIII" -> backlog.setSem8(valueToSave);
+        }
+        if (isNew) entityManager.persist(backlog);
+        return backlog;
+    }
+
+    private int calculateMaxSem(StudentGrade g) {
+        for (int sem = 8; sem >= 1; sem--) {
+            if (g.getSem(sem) != null) return sem;
+        }
+        return 0;
+    }
+
+    private Double resolveHigherScore(Double oldVal, Double newVal) {
+        if (newVal == null) return oldVal;
+        if (oldVal == null) return newVal;
+        return Math.max(oldVal, newVal);
+    }
+
+    private int getSemesterOrder(String sem) {
+        if (sem == null) return 0;
+        return switch (sem.trim().toUpperCase()) {
+            case "I", "1" -> 1; case "II", "2" -> 2; case "III", "3" -> 3;
+            case "IV", "4" -> 4; case "V", "5" -> 5; case "VI", "6" -> 6;
+            case "VII", "7" -> 7; case "VIII", "8" -> 8; default -> 0;
+        };
+    }
+}
@@ -1,27 +1,25 @@
 package com.beu.result.AcademicAnalytics.service;
 
 import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
-import com.beu.result.AcademicAnalytics.entity.StudentBacklog;
-import com.beu.result.AcademicAnalytics.entity.StudentGrade;
-import com.beu.result.AcademicAnalytics.entity.StudentInformations;
-import com.beu.result.AcademicAnalytics.repository.StudentBacklogRepository;
-import com.beu.result.AcademicAnalytics.repository.StudentGradeRepository;
-import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.beu.result.AcademicAnalytics.config.UrlTemplate;
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
 import com.microsoft.playwright.*;
-import com.microsoft.playwright.options.WaitUntilState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service responsible for the automated ingestion of academic records.
@@ -32,337 +30,351 @@ public class TranscriptGenerationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(TranscriptGenerationService.class);
 
-    private final StudentInfoRepository resultRepository;
-    private final StudentGradeRepository gradeRepository;
-    private final StudentBacklogRepository backlogRepository;
-    private final DataSyncStatus syncStatus;
+    private final StudentRecordWriter recordWriter;
     private final ResultSourceConfig sourceConfig;
-
-    public TranscriptGenerationService(StudentInfoRepository resultRepository,
-                                       StudentGradeRepository gradeRepository,
-                                       StudentBacklogRepository backlogRepository,
-                                       DataSyncStatus syncStatus,
-                                       ResultSourceConfig sourceConfig) {
-        this.resultRepository = resultRepository;
-        this.gradeRepository = gradeRepository;
-        this.backlogRepository = backlogRepository;
-        this.syncStatus = syncStatus;
+    private final LegacyPortalFetcher legacyFetcher;
+    private final BrowserPool browserPool;
+    private final PageReadinessProbe readinessProbe;
+    private final PortalDomExtractor domExtractor;
+    private final IngestionCheckpointService checkpointService;
+    private final PipelineMetrics metrics;
+    private final int workerCount;
+    private final int workUnitSize;
+
+    private static final int MAX_ENGINE_RESTARTS = 2;
+
+    // Outcomes recorded in addition to the PageStatus names
+    private static final String OUTCOME_PARSE_ERROR = "PARSE_ERROR";
+    private static final String OUTCOME_ERROR = "ERROR";
+    // Reported to the dashboard only; never checkpointed
+    private static final String OUTCOME_INTERRUPTED = "INTERRUPTED";
+
+    private record RecordReport(String outcome, String message) {}
+
+    public TranscriptGenerationService(StudentRecordWriter recordWriter,
+                                       ResultSourceConfig sourceConfig,
+                                       LegacyPortalFetcher legacyFetcher,
+                                       BrowserPool browserPool,
+                                       PageReadinessProbe readinessProbe,
+                                       PortalDomExtractor domExtractor,
+                                       IngestionCheckpointService checkpointService,
+                                       PipelineMetrics metrics,
+                                       @Value("${ingestion.worker-count:4}") int workerCount,
+                                       @Value("${ingestion.work-unit-size:25}") int workUnitSize) {
+        this.recordWriter = recordWriter;
         this.sourceConfig = sourceConfig;
+        this.legacyFetcher = legacyFetcher;
+        this.browserPool = browserPool;
+        this.readinessProbe = readinessProbe;
+        this.domExtractor = domExtractor;
+        this.checkpointService = checkpointService;
+        this.metrics = metrics;
+        this.workerCount = workerCount;
+        this.workUnitSize = workUnitSize;
     }
 
-    @Async
-    public void processResultRange(String linkKeyOrUrl, long startReg, long endReg) {
-
-        String urlPattern = linkKeyOrUrl.startsWith("http") ? linkKeyOrUrl : sourceConfig.getUrl(linkKeyOrUrl);
+    /**
+     * Runs one scheduled job to completion and returns its final state.
+     * Records that already reached a terminal outcome in an earlier run of the job are
+     * counted as processed and never fetched again. Called by {@link IngestionJobScheduler}.
+     */
+    public IngestionJobStatus.State processResultRange(IngestionJob job, IngestionJobStatus status) {
+        String linkKeyOrUrl = job.getLinkKey();
+        UrlTemplate urlTemplate = sourceConfig.resolve(linkKeyOrUrl);
 
-        if (urlPattern == null) {
+        if (urlTemplate == null) {
             LOG.error("Ingestion Aborted: Invalid Link Key or URL '{}'", linkKeyOrUrl);
-            return;
+            status.updateProgress(status.getTotalCount(), "Aborted: invalid link key or URL");
+            checkpointService.updateState(job.getId(), IngestionJob.State.FAILED);
+            return IngestionJobStatus.State.FAILED;
         }
 
-        int totalItems = (int) (endReg - startReg + 1);
-        syncStatus.startJob(totalItems);
-
-        // Fix: Ensure Playwright and Browser are wrapped in try-with-resources to prevent ghost processes
-        try (Playwright playwright = Playwright.create()) {
-
-            // 1. Setup Linux-Specific Pathing
-            String appPath = System.getProperty("user.dir");
-            Path bundledPath = Paths.get(appPath, "browsers", "linux", "chrome-linux", "chrome");
-
-            // 2. Configure Essential Linux Flags
-            // These flags prevent the SIGTRAP crash on Ubuntu/Debian
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setArgs(Arrays.asList(
-                            "--no-sandbox",              // Required for /opt/ or root execution
-                            "--disable-setuid-sandbox",  // Prevents fatal SIGTRAP errors
-                            "--disable-dev-shm-usage",   // Prevents memory crashes
-                            "--disable-gpu"              // Optimizes resource usage
-                    ));
-
-            // 3. Tiered Browser Resolution (Bundled -> System -> Download)
-            if (Files.exists(bundledPath)) {
-                launchOptions.setExecutablePath(bundledPath);
-                LOG.info("Linux Engine: Using bundled browser at {}", bundledPath);
-            } else {
-                LOG.warn("Bundled browser NOT found at {}. Attempting system default/download.", bundledPath);
-            }
-
-            // 4. Launch Browser and Context
-            try (Browser browser = playwright.chromium().launch(launchOptions);
-                 BrowserContext context = browser.newContext(new Browser.NewContextOptions().setViewportSize(1280, 720))) {
-
-                Page page = context.newPage();
-
-                for (long regNo = startReg; regNo <= endReg; regNo++) {
-                    String logMessage = "Ingesting: " + regNo;
-                    try {
-                        String targetUrl = urlPattern.replace("{REG}", String.valueOf(regNo));
-
-                        page.navigate(targetUrl, new Page.NavigateOptions()
-                                .setTimeout(60000)
-                                .setWaitUntil(WaitUntilState.NETWORKIDLE));
-
-                        PageStatus status = checkPageStatus(page);
-
-                        if (status == PageStatus.READY) {
-                            boolean isLegacy = page.locator("#ContentPlaceHolder1_GridView3").count() > 0;
-                            String curSem = isLegacy ? extractSemesterLegacy(page) : extractSemesterModern(page);
-
-                            StudentInformations profile = isLegacy
-                                    ? parseLegacyPortalProfile(page, regNo)
-                                    : parseModernPortalProfile(page, regNo);
+        long startReg = job.getRangeStart();
+        long endReg = job.getRangeEnd();
+        int totalItems = status.getTotalCount();
+        
+        // 1. Skip everything an earlier run of this job already settled
+        Set<Long> completed = checkpointService.completedRegistrations(job.getId());
+        if (!completed.isEmpty()) {
+            status.updateProgress(completed.size(), "Resumed: " + completed.size() + " records already complete");
+        }
 
-                            if (profile != null) {
-                                resultRepository.save(profile);
-                                StudentGrade grades = isLegacy
-                                        ? parseLegacyPortalGrades(page, regNo)
-                                        : parseModernPortalGrades(page, regNo);
+        // 1b. Incremental re-sync also skips what earlier jobs already synced for this link
+        if (job.isIncrementalSync()) {
+            Set<Long> synced = checkpointService.alreadySyncedRegistrations(job);
+            synced.removeAll(completed);
+            if (!synced.isEmpty()) {
+                status.updateProgress(synced.size(), "Incremental: " + synced.size() + " records already synced");
+                completed.addAll(synced);
+            }
+        }
 
-                                if (grades != null) {
-                                    synchronizeGrades(grades, regNo, curSem);
-                                }
+        // 1c. Sparse ranges: skip serials a discovery probe found empty
+        if (job.isRestrictedToDiscovered()) {
+            Set<Long> undiscovered = checkpointService.undiscoveredRegistrations(job);
+            undiscovered.removeAll(completed);
+            if (!undiscovered.isEmpty()) {
+                status.updateProgress(undiscovered.size(), "Discovery: " + undiscovered.size() + " empty serials skipped");
+                completed.addAll(undiscovered);
+            }
+        }
+        recordWriter.openCheckpoint(job, completed);
 
-                                String remarks = isLegacy ? extractRemarksLegacy(page) : extractRemarksModern(page);
-                                if (curSem != null) synchronizeBacklogs(regNo, curSem, remarks);
+        // 2. Split the range into work units drained by every worker from one shared queue
+        Queue<WorkUnit> workQueue = partitionRange(startReg, endReg, completed, workUnitSize);
+        int workers = Math.max(1, Math.min(workerCount, workQueue.size()));
+        LOG.info("Ingestion job #{} started for {} records using {} workers ({} work units)",
+                job.getId(), totalItems - completed.size(), workers, workQueue.size());
 
-                                logMessage = "Indexed: " + profile.getStudentName();
-                                LOG.info(logMessage);
-                            } else {
-                                logMessage = "Skipped (Parse Error): " + regNo;
-                            }
-                        } else {
-                            logMessage = "Skipped (" + status + "): " + regNo;
-                        }
+        ExecutorService workerPool = Executors.newFixedThreadPool(workers, new IngestionWorkerFactory());
+        boolean finished = false;
+        IngestionJobStatus.State finalState = IngestionJobStatus.State.FAILED;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(workerPool.submit(() -> runWorker(job, status, urlTemplate, workQueue)));
+            }
 
-                    } catch (Exception e) {
-                        logMessage = "Error: " + e.getMessage();
-                        LOG.error("Failed to ingest {}", regNo, e);
-                    } finally {
-                        syncStatus.updateProgress(logMessage);
-                    }
+            // 3. Wait for every worker; a dead worker leaves its units in the queue for the survivors
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Ingestion worker terminated abnormally", e.getCause());
                 }
             }
+
+            // 4. Account for units nobody picked up (cancelled, or every engine failed to start)
+            int abandoned = 0;
+            WorkUnit unit;
+            while ((unit = workQueue.poll()) != null) abandoned += unit.size();
+            if (abandoned > 0 && status.isCancelled()) {
+                status.updateProgress(abandoned, "Cancelled: " + abandoned + " records left for a later resume");
+            } else if (abandoned > 0) {
+                LOG.error("Ingestion finished with {} records abandoned after worker failures", abandoned);
+                status.updateProgress(abandoned, "Skipped (Worker Failure): " + abandoned + " records");
+            }
+
+            // 5. Job is only finished once the write-behind stage has committed its records
+            recordWriter.awaitFlushed();
+            finished = abandoned == 0 || status.isCancelled();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Ingestion interrupted while waiting for workers");
         } catch (Exception e) {
             LOG.error("Critical Failure in Ingestion Engine", e);
         } finally {
-            syncStatus.finishJob();
+            workerPool.shutdownNow();
+            recordWriter.closeCheckpoint(job.getId());
+            // An interrupted job stays RUNNING so the next start resumes it
+            if (!Thread.currentThread().isInterrupted()) {
+                boolean succeeded = finished && !status.isCancelled();
+                checkpointService.updateState(job.getId(), succeeded ? IngestionJob.State.COMPLETED : IngestionJob.State.FAILED);
+                finalState = status.isCancelled() ? IngestionJobStatus.State.CANCELLED
+                        : finished ? IngestionJobStatus.State.COMPLETED : IngestionJobStatus.State.FAILED;
+            }
         }
+        return finalState;
     }
 
     // ==========================================
-    // DATA VALIDATION & PERSISTENCE
+    // WORKER POOL
     // ==========================================
 
-    private enum PageStatus { READY, EMPTY_TABLE, NAME_EMPTY, NO_RECORD, UNKNOWN }
-
-    private PageStatus checkPageStatus(Page page) {
-        if (page.locator("text=/No Record Found|Invalid Registration|Data Not Available/i").count() > 0) {
-            return PageStatus.NO_RECORD;
-        }
-
-        Locator nameCell = page.locator("tr:has-text('Student Name') >> td").nth(1);
-        if (nameCell.count() == 0) {
-            nameCell = page.locator("#ContentPlaceHolder1_DataList1_StudentNameLabel_0");
-        }
-
-        if (nameCell.count() > 0) {
-            String nameValue = nameCell.innerText().trim();
-            if (nameValue.isEmpty() || nameValue.equals("&nbsp;")) {
-                return PageStatus.NAME_EMPTY;
-            }
-        } else {
-            return PageStatus.UNKNOWN;
-        }
-
-        Locator table = page.locator("table:has-text('Subject Code')").first();
-        if (table.count() > 0) {
-            int rows = table.locator("tr").count();
-            return (rows > 2) ? PageStatus.READY : PageStatus.EMPTY_TABLE;
-        }
-        return PageStatus.UNKNOWN;
+    /** Contiguous slice of the registration range handed to one worker at a time. */
+    record WorkUnit(long from, long to) {
+        int size() { return (int) (to - from + 1); }
     }
 
-    private void synchronizeGrades(StudentGrade newGrades, Long regNo, String incomingSem) {
-        Optional<StudentGrade> existingOpt = gradeRepository.findById(regNo);
-        StudentGrade target;
-
-        if (existingOpt.isPresent()) {
-            target = existingOpt.get();
-            target.setSem1(resolveHigherScore(target.getSem1(), newGrades.getSem1()));
-            target.setSem2(resolveHigherScore(target.getSem2(), newGrades.getSem2()));
-            target.setSem3(resolveHigherScore(target.getSem3(), newGrades.getSem3()));
-            target.setSem4(resolveHigherScore(target.getSem4(), newGrades.getSem4()));
-            target.setSem5(resolveHigherScore(target.getSem5(), newGrades.getSem5()));
-            target.setSem6(resolveHigherScore(target.getSem6(), newGrades.getSem6()));
-            target.setSem7(resolveHigherScore(target.getSem7(), newGrades.getSem7()));
-            target.setSem8(resolveHigherScore(target.getSem8(), newGrades.getSem8()));
-
-            int dbMaxSem = calculateMaxSem(target);
-            int incomingSemIndex = getSemesterOrder(incomingSem);
-
-            if (incomingSemIndex >= dbMaxSem && newGrades.getCgpa() != null && !newGrades.getCgpa().equals("NA")) {
-                target.setCgpa(newGrades.getCgpa());
+    /**
+     * Cuts the range into units of at most {@code unitSize} records.
+     * Completed registrations split a unit, so resumed jobs only queue the gaps.
+     */
+    static Queue<WorkUnit> partitionRange(long startReg, long endReg, Set<Long> completed, int unitSize) {
+        Queue<WorkUnit> queue = new ConcurrentLinkedQueue<>();
+        unitSize = Math.max(1, unitSize);
+        long from = -1;
+        for (long regNo = startReg; regNo <= endReg; regNo++) {
+            if (completed.contains(regNo)) {
+                if (from >= 0) queue.add(new WorkUnit(from, regNo - 1));
+                from = -1;
+                continue;
+            }
+            if (from < 0) from = regNo;
+            if (regNo - from + 1 == unitSize) {
+                queue.add(new WorkUnit(from, regNo));
+                from = -1;
             }
-        } else {
-            target = newGrades;
-            target.setStudentInformations(resultRepository.getReferenceById(regNo));
         }
-        gradeRepository.save(target);
-    }
-
-    private int calculateMaxSem(StudentGrade g) {
-        if (isVal(g.getSem8())) return 8;
-        if (isVal(g.getSem7())) return 7;
-        if (isVal(g.getSem6())) return 6;
-        if (isVal(g.getSem5())) return 5;
-        if (isVal(g.getSem4())) return 4;
-        if (isVal(g.getSem3())) return 3;
-        if (isVal(g.getSem2())) return 2;
-        if (isVal(g.getSem1())) return 1;
-        return 0;
+        if (from >= 0) queue.add(new WorkUnit(from, endReg));
+        return queue;
     }
 
-    private boolean isVal(String s) { return s != null && !s.equals("NA"); }
-
-    private void synchronizeBacklogs(Long regNo, String semester, String remarks) {
-        String valueToSave = (remarks == null || remarks.isEmpty()) ? "PASS" : remarks;
-        String semClean = semester.toUpperCase().replaceAll("[^0-9IVX]", "");
-
-        Optional<StudentBacklog> existingOpt = backlogRepository.findById(regNo);
-        StudentBacklog backlog = existingOpt.orElse(new StudentBacklog());
-
-        if (existingOpt.isEmpty()) {
-            backlog.setStudentGrade(gradeRepository.getReferenceById(regNo));
-        }
-
-        switch (semClean) {
-            case "1", "I" -> backlog.setSem1(valueToSave);
-            case "2", "II" -> backlog.setSem2(valueToSave);
-            case "3", "III" -> backlog.setSem3(valueToSave);
-            case "4", "IV" -> backlog.setSem4(valueToSave);
-            case "5", "V" -> backlog.setSem5(valueToSave);
-            case "6", "VI" -> backlog.setSem6(valueToSave);
-            case "7", "VII" -> backlog.setSem7(valueToSave);
-            case "8", "VIII" -> backlog.setSem8(valueToSave);
+    /**
+     * Worker loop. Each worker leases a pooled browser lazily, the first time a record
+     * needs one, and returns it after every work unit so the pool can recycle it or
+     * hand it to another job. When the browser dies mid-unit, the unfinished tail is
+     * put back on the queue and a new lease is taken (bounded by MAX_ENGINE_RESTARTS).
+     * A pause mid-unit also hands the tail back; the worker only waits once its lease is
+     * returned, so a paused job never holds browsers that another job could use.
+     */
+    private void runWorker(IngestionJob job, IngestionJobStatus status, UrlTemplate urlTemplate, Queue<WorkUnit> workQueue) {
+        status.workerStarted();
+        int restarts = 0;
+        try (WorkerEngine engine = new WorkerEngine()) {
+            WorkUnit unit;
+            while (status.awaitRunnable() && !Thread.currentThread().isInterrupted() && (unit = workQueue.poll()) != null) {
+                for (long regNo = unit.from(); regNo <= unit.to(); regNo++) {
+                    if (status.haltRequested()) {
+                        // Paused or cancelled: hand the untouched tail back so it is resumed or accounted for
+                        workQueue.add(new WorkUnit(regNo, unit.to()));
+                        break;
+                    }
+                    long recordStart = System.currentTimeMillis();
+                    RecordReport report = ingestRecord(job, engine, urlTemplate, regNo);
+                    status.recordProcessed(regNo, report.outcome(), System.currentTimeMillis() - recordStart, report.message());
+
+                    if (engine.isBroken()) {
+                        if (regNo < unit.to()) workQueue.add(new WorkUnit(regNo + 1, unit.to()));
+                        if (++restarts > MAX_ENGINE_RESTARTS) {
+                            status.workerFailed();
+                            LOG.error("Ingestion worker giving up after {} engine restarts", MAX_ENGINE_RESTARTS);
+                            return;
+                        }
+                        LOG.warn("Ingestion worker restarting browser engine ({}/{})", restarts, MAX_ENGINE_RESTARTS);
+                        break;
+                    }
+                }
+                engine.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            status.workerStopped();
         }
-        backlogRepository.save(backlog);
-    }
-
-    // ==========================================
-    // PARSING HELPERS & UTILITIES
-    // ==========================================
-
-    private StudentInformations parseModernPortalProfile(Page page, long regNo) {
-        try {
-            String name = page.locator("tr:has-text('Student Name') >> td").nth(1).innerText().trim();
-            if (name.isEmpty()) return null;
-            String father = page.locator("tr:has-text('Father') >> td").nth(1).innerText().trim();
-            Locator motherCell = page.locator("tr:has-text('Mother') >> td").nth(1);
-            String mother = motherCell.count() > 0 ? motherCell.innerText().trim() : page.locator("tr:has-text('Father') >> td").nth(3).innerText().trim();
-            String branch = page.locator("tr:has-text('Course Name') >> td").nth(1).innerText().replaceAll("^\\d+\\s*-\\s*", "").trim();
-            return new StudentInformations(regNo, name, father, mother, "B.Tech", branch);
-        } catch (Exception e) { return null; }
     }
 
-    private StudentGrade parseModernPortalGrades(Page page, long regNo) {
+    /**
+     * Fetches, parses and persists a single registration number.
+     * Legacy server-rendered pages go over plain HTTP; everything else (or a legacy
+     * page whose markup could not be recognised) goes through the worker's browser.
+     * The record's outcome is checkpointed against the job whatever happens.
+     * Returns the outcome and the status line reported to the dashboard.
+     */
+    private RecordReport ingestRecord(IngestionJob job, WorkerEngine engine, UrlTemplate urlTemplate, long regNo) {
+        String logMessage;
+        String outcome;
+        ExtractedResult result = null;
         try {
-            Locator sgpaRow = page.locator("tr:has-text('SGPA')").last();
-            if (sgpaRow.count() == 0) return null;
-            List<String> cells = sgpaRow.locator("td, th").allInnerTexts();
-            StudentGrade g = new StudentGrade();
-            g.setSem1(normalize(cells, 1)); g.setSem2(normalize(cells, 2));
-            g.setSem3(normalize(cells, 3)); g.setSem4(normalize(cells, 4));
-            g.setSem5(normalize(cells, 5)); g.setSem6(normalize(cells, 6));
-            g.setSem7(normalize(cells, 7)); g.setSem8(normalize(cells, 8));
-            g.setCgpa(normalize(cells, 9));
-            return g;
-        } catch (Exception e) { return null; }
-    }
+            String targetUrl = urlTemplate.expand(regNo);
+
+            if (legacyFetcher.supports(urlTemplate.pattern())) {
+                long fetchStart = System.nanoTime();
+                String fetchOutcome = OUTCOME_ERROR;
+                try {
+                    result = legacyFetcher.fetch(targetUrl, regNo);
+                    fetchOutcome = result.status().name();
+                } finally {
+                    metrics.recordStage(PipelineMetrics.STAGE_HTTP_FETCH, job.getLinkKey(), fetchOutcome, System.nanoTime() - fetchStart);
+                }
+                if (result.status() == PageStatus.UNKNOWN) {
+                    LOG.debug("Legacy markup not recognised for {}, falling back to browser", regNo);
+                    result = null;
+                }
+            }
+            if (result == null) {
+                result = extractWithBrowser(engine.page(), job.getLinkKey(), targetUrl, regNo);
+            }
 
-    private StudentInformations parseLegacyPortalProfile(Page page, long regNo) {
-        try {
-            String name = getTextById(page, "#ContentPlaceHolder1_DataList1_StudentNameLabel_0");
-            if (name == null || name.isEmpty()) return null;
-            String father = getTextById(page, "#ContentPlaceHolder1_DataList1_FatherNameLabel_0");
-            String mother = getTextById(page, "#ContentPlaceHolder1_DataList1_MotherNameLabel_0");
-            String branch = getTextById(page, "#ContentPlaceHolder1_DataList1_CourseLabel_0");
-            return new StudentInformations(regNo, name, father, mother, "B.Tech", branch);
-        } catch (Exception e) { return null; }
-    }
+            if (result.status() == PageStatus.READY) {
+                if (result.profile() != null) {
+                    outcome = PageStatus.READY.name();
+                    logMessage = "Indexed: " + result.profile().getStudentName();
+                    LOG.info(logMessage);
+                } else {
+                    outcome = OUTCOME_PARSE_ERROR;
+                    logMessage = "Skipped (Parse Error): " + regNo;
+                }
+            } else {
+                outcome = result.status().name();
+                logMessage = "Skipped (" + result.status() + "): " + regNo;
+            }
 
-    private StudentGrade parseLegacyPortalGrades(Page page, long regNo) {
-        try {
-            Locator row = page.locator("#ContentPlaceHolder1_GridView3 tr").nth(1);
-            if (row.count() == 0) return null;
-            List<String> cells = row.locator("td").allInnerTexts();
-            StudentGrade g = new StudentGrade();
-            g.setSem1(normalize(cells, 0)); g.setSem2(normalize(cells, 1));
-            g.setSem3(normalize(cells, 2)); g.setSem4(normalize(cells, 3));
-            g.setSem5(normalize(cells, 4)); g.setSem6(normalize(cells, 5));
-            g.setSem7(normalize(cells, 6)); g.setSem8(normalize(cells, 7));
-            g.setCgpa(normalize(cells, 8));
-            return g;
-        } catch (Exception e) { return null; }
-    }
+        } catch (InterruptedException e) {
+            // No outcome: the record was never looked at and must be retried on resume
+            Thread.currentThread().interrupt();
+            return new RecordReport(OUTCOME_INTERRUPTED, "Error: interrupted at " + regNo);
+        } catch (Exception e) {
+            outcome = OUTCOME_ERROR;
+            logMessage = "Error: " + e.getMessage();
+            LOG.error("Failed to ingest {}", regNo, e);
+        }
 
-    private String extractSemesterModern(Page page) {
         try {
-            Locator semCell = page.locator("td:has-text('Semester:')").first();
-            if (semCell.count() > 0) return semCell.innerText().replace("Semester:", "").trim();
-            Matcher m = Pattern.compile("(?i)(?:semester|sem)=([IVX0-9]+)").matcher(page.url());
-            return m.find() ? m.group(1) : null;
-        } catch (Exception e) { return null; }
+            recordWriter.submit(job, regNo, result, outcome);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.countRecord(PipelineMetrics.PIPELINE_INGESTION, job.getLinkKey(), outcome);
+        return new RecordReport(outcome, logMessage);
     }
 
-    private String extractRemarksModern(Page page) {
-        try {
-            if (page.locator("span.text-danger:has-text('FAIL')").count() > 0) return "FAIL";
-            if (page.locator("span.text-danger:has-text('ABSENT')").count() > 0) return "ABSENT";
-            return "PASS";
-        } catch (Exception e) { return "PASS"; }
-    }
+    private ExtractedResult extractWithBrowser(Page page, String linkKey, String targetUrl, long regNo) {
+        PageReadinessProbe.Outcome readiness = readinessProbe.navigateAndAwait(page, targetUrl, 60000, 30000);
+        metrics.recordPageLoad(linkKey, readiness);
+        if (readiness.status() != PageStatus.READY) return ExtractedResult.of(readiness.status());
 
-    private String extractSemesterLegacy(Page page) {
-        try {
-            Locator semLoc = page.locator("#ContentPlaceHolder1_DataList2_Exam_Name_0");
-            return (semLoc.count() > 0) ? semLoc.innerText().trim() : null;
-        } catch (Exception e) { return null; }
+        long extractStart = System.nanoTime();
+        ExtractedResult result = domExtractor.extract(page, regNo);
+        metrics.recordStage(PipelineMetrics.STAGE_EXTRACT, linkKey, result.status().name(), System.nanoTime() - extractStart);
+        return result;
     }
 
-    private String extractRemarksLegacy(Page page) {
-        try {
-            String val = getTextById(page, "#ContentPlaceHolder1_DataList3_remarkLabel_0");
-            return (val != null && !val.isEmpty()) ? val : "PASS";
-        } catch (Exception e) { return "PASS"; }
-    }
+    /**
+     * Per-worker browser handle. Leases a context from the shared {@link BrowserPool}
+     * on first use, so workers served entirely over HTTP never touch Chromium.
+     * Closing it hands the browser back to the pool.
+     */
+    private class WorkerEngine implements AutoCloseable {
+        private BrowserPool.Lease lease;
+        private Page page;
+        private boolean acquireFailed;
+
+        Page page() throws InterruptedException {
+            if (page == null) {
+                try {
+                    lease = browserPool.acquire(1280, 720);
+                    page = lease.context().newPage();
+                } catch (PlaywrightException e) {
+                    acquireFailed = true;
+                    throw e;
+                }
+            }
+            lease.pageServed();
+            return page;
+        }
 
-    private String resolveHigherScore(String oldVal, String newVal) {
-        if (newVal == null || newVal.equals("NA") || newVal.equals("-")) return oldVal;
-        if (oldVal == null || oldVal.equals("NA") || oldVal.equals("-")) return newVal;
-        try { return (Double.parseDouble(newVal) >= Double.parseDouble(oldVal)) ? newVal : oldVal; }
-        catch (Exception e) { return newVal; }
-    }
+        boolean isBroken() {
+            return acquireFailed || (page != null && (page.isClosed() || !lease.isHealthy()));
+        }
 
-    private String normalize(List<String> cells, int index) {
-        if (index < cells.size()) {
-            String val = cells.get(index).trim();
-            return (val.equals("-") || val.equals("NA") || val.isEmpty()) ? "NA" : val;
-        } return "NA";
+        @Override
+        public void close() {
+            if (lease != null) lease.close();
+            lease = null;
+            page = null;
+            acquireFailed = false;
+        }
     }
 
-    private String getTextById(Page page, String selector) {
-        Locator loc = page.locator(selector);
-        return (loc.count() > 0) ? loc.innerText().trim() : null;
-    }
+    private static class IngestionWorkerFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger(1);
 
-    private int getSemesterOrder(String sem) {
-        if (sem == null) return 0;
-        return switch (sem.trim().toUpperCase()) {
-            case "I", "1" -> 1; case "II", "2" -> 2; case "III", "3" -> 3;
-            case "IV", "4" -> 4; case "V", "5" -> 5; case "VI", "6" -> 6;
-            case "VII", "7" -> 7; case "VIII", "8" -> 8; default -> 0;
-        };
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ingest-worker-" + sequence.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
     }
-}
\ No newline at end of file
+}
@@ -22,6 +22,13 @@ public class ArchivalJobRequest {
     /** Range End: Registration ID */
     private Long rangeEnd;
 
+    /**
+     * Rendering engine: "portal" prints the live result page, "local" renders stored
+     * data only, "hybrid" renders stored data and prints the rest from the portal.
+     * Null uses the {@code archival.render-mode} default.
+     */
+    private String renderMode;
+
     /** * Local storage destination.
      * Can be null (will default to Documents/Academic_Archives).
      */
@@ -2,6 +2,7 @@ package com.beu.result.DocumentArchival.controller;
 
 import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
 import com.beu.result.DocumentArchival.config.ArchivalJobRequest;
+import com.beu.result.DocumentArchival.service.ArchiveBundleService;
 import com.beu.result.DocumentArchival.service.CertificateGenerationService;
 import com.beu.result.DocumentArchival.util.ArchivalTelemetry;
 import jakarta.servlet.http.HttpServletResponse;
@@ -14,17 +15,16 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Controller
 @RequestMapping("/admin/archives")
@@ -35,13 +35,16 @@ public class ArchivalController {
     private final CertificateGenerationService archivalService;
     private final ArchivalTelemetry telemetry;
     private final ResultSourceConfig config;
+    private final ArchiveBundleService bundleService;
 
     public ArchivalController(CertificateGenerationService archivalService,
                               ArchivalTelemetry telemetry,
-                              ResultSourceConfig config) {
+                              ResultSourceConfig config,
+                              ArchiveBundleService bundleService) {
         this.archivalService = archivalService;
         this.telemetry = telemetry;
         this.config = config;
+        this.bundleService = bundleService;
     }
 
     // Default directory logic centralizer
@@ -94,7 +97,11 @@ public class ArchivalController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid Registration Number Range"));
         }
 
-        // 4. Trigger Async Service
+        // 4. Mark the run as started before dispatching, so a telemetry stream opened right away
+        // never reports the previous run's completed state
+        telemetry.initializeJob((int) (jobRequest.getRangeEnd() - jobRequest.getRangeStart() + 1));
+
+        // 5. Trigger Async Service
         // The service will look up the URL again using the key, which is fine and consistent.
         archivalService.generateCertificates(jobRequest);
 
@@ -111,12 +118,28 @@ public class ArchivalController {
         return telemetry;
     }
 
+    /**
+     * Push counterpart of {@code /api/telemetry}: per-record events at a bounded rate.
+     * A reconnecting client is replayed what it missed since {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/api/telemetry/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamJobTelemetry(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return telemetry.eventStream().subscribe(lastEventId);
+    }
+
     // ==========================================
     // 3. DOWNLOAD HANDLERS
     // ==========================================
 
+    /**
+     * Serves the batch's pre-built ZIP bundle. Single-range {@code Range} requests are honoured
+     * (guarded by {@code If-Range} against the bundle's ETag) so interrupted downloads can resume.
+     */
     @GetMapping("/download/zip")
     public void downloadBatchZip(@RequestParam("batchName") String batchName,
+                                 @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                 @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
                                  HttpServletResponse response) {
 
         // Sanitize input to prevent path traversal attacks
@@ -133,30 +156,43 @@ public class ArchivalController {
             return;
         }
 
-        response.setContentType("application/zip");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zipFilename + "\"");
-
-        try (ZipOutputStream zos = new ZipOutputStream(response.getOutputStream());
-             Stream<Path> paths = Files.list(subFolder)) {
-
-            paths.filter(path -> !Files.isDirectory(path))
-                    .filter(path -> path.toString().toLowerCase().endsWith(".pdf"))
-                    .filter(path -> !path.getFileName().toString().equalsIgnoreCase(mergedFileToExclude))
-                    .forEach(path -> {
-                        ZipEntry zipEntry = new ZipEntry(path.getFileName().toString());
-                        try {
-                            zos.putNextEntry(zipEntry);
-                            Files.copy(path, zos);
-                            zos.closeEntry();
-                        } catch (IOException e) {
-                            LOG.error("Failed to compress file: " + path, e);
-                        }
-                    });
+        try (ArchiveBundleService.Bundle bundle = bundleService.bundleFor(subFolder, "Archive_Bundle_" + safeName, mergedFileToExclude)) {
+            String etag = "\"" + bundle.fingerprint() + "\"";
+
+            long start = 0;
+            long end = bundle.size() - 1;
+            boolean partial = false;
+            if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+                long[] range = ArchiveBundleService.parseRange(rangeHeader, bundle.size());
+                if (range == ArchiveBundleService.UNSATISFIABLE) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + bundle.size());
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                // A malformed Range header is ignored and the whole bundle is sent
+                if (range != null) {
+                    start = range[0];
+                    end = range[1];
+                    partial = true;
+                }
+            }
+            long length = end - start + 1;
+
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zipFilename + "\"");
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setContentLengthLong(length);
+            if (partial) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + bundle.size());
+            }
 
-            LOG.info("ZIP Archive downloaded from: {}", subFolder);
+            bundleService.transfer(bundle, start, length, Channels.newChannel(response.getOutputStream()));
+            LOG.info("ZIP Archive downloaded from: {} (bytes {}-{})", subFolder, start, end);
 
         } catch (IOException e) {
-            LOG.error("ZIP Generation failed", e);
+            LOG.error("ZIP download failed", e);
         }
     }
 
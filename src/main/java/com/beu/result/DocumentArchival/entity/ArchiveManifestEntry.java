@@ -0,0 +1,62 @@
+package com.beu.result.DocumentArchival.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Last transcript archived for a registration number under one result link.
+ * A re-run skips the record while its source hash is unchanged and the file is still in place.
+ */
+@Entity
+@Table(name = "archive_manifest",
+        indexes = @Index(name = "idx_archive_manifest_source_hash", columnList = "sourceHash"))
+@IdClass(ArchiveManifestEntry.Key.class)
+@Data
+@NoArgsConstructor
+public class ArchiveManifestEntry {
+
+    @Id
+    @Column(name = "link_key", length = 2048)
+    private String linkKey;
+
+    @Id
+    @Column(name = "registration_number")
+    private Long registrationNumber;
+
+    /**
+     * SHA-256 of the data the transcript was rendered from (stored record and template version, or
+     * portal page text); names the blob in the artifact store.
+     */
+    @Column(length = 64)
+    private String sourceHash;
+
+    /** SHA-256 of the published PDF bytes, to check the file against. */
+    @Column(length = 64)
+    private String contentHash;
+
+    private Long sizeBytes;
+
+    /** Batch-folder file the transcript was published to. */
+    @Column(length = 4096)
+    private String filePath;
+
+    private LocalDateTime archivedAt;
+
+    public ArchiveManifestEntry(String linkKey, Long registrationNumber) {
+        this.linkKey = linkKey;
+        this.registrationNumber = registrationNumber;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String linkKey;
+        private Long registrationNumber;
+    }
+}
@@ -0,0 +1,19 @@
+package com.beu.result.DocumentArchival.repository;
+
+import com.beu.result.DocumentArchival.entity.ArchiveManifestEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for the archival manifest used to skip unchanged records.
+ */
+@Repository
+public interface ArchiveManifestRepository extends JpaRepository<ArchiveManifestEntry, ArchiveManifestEntry.Key> {
+
+    List<ArchiveManifestEntry> findByLinkKeyAndRegistrationNumberBetween(String linkKey, Long startReg, Long endReg);
+
+    Optional<ArchiveManifestEntry> findFirstBySourceHash(String sourceHash);
+}
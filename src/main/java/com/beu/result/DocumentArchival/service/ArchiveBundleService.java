@@ -0,0 +1,231 @@
+package com.beu.result.DocumentArchival.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Pre-built ZIP bundles of an archival batch folder.
+ * <p>
+ * Transcripts are already-compressed PDFs, so entries are STORED rather than deflated. A bundle
+ * is built once per folder state and kept in the folder's {@code .bundle} directory, named by a
+ * fingerprint of the files it contains (name, size, modification time). Later downloads of an
+ * unchanged batch reuse it and are served straight from the file with {@link FileChannel#transferTo}.
+ * The file is opened under the same per-folder lock that deletes stale bundles, so a rebuild never
+ * removes a bundle between lookup and open; an open bundle stays readable after it is unlinked.
+ * </p>
+ */
+@Service
+public class ArchiveBundleService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveBundleService.class);
+
+    private static final String BUNDLE_DIR = ".bundle";
+
+    /** Returned by {@link #parseRange} when the header is valid but no range overlaps the bundle. */
+    public static final long[] UNSATISFIABLE = new long[0];
+
+    /** An open built bundle; {@code fingerprint} doubles as the download's ETag. Close it when done. */
+    public record Bundle(FileChannel channel, String fingerprint, long size) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // One build per folder at a time; concurrent requests for the same batch wait for it
+    private final Map<Path, Object> buildLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the bundle for the folder's current contents, building it if the folder changed.
+     *
+     * @param excludedFileName file left out of the bundle (the merged transcript)
+     */
+    public Bundle bundleFor(Path batchFolder, String bundleName, String excludedFileName) throws IOException {
+        Path folder = batchFolder.toAbsolutePath().normalize();
+        synchronized (buildLocks.computeIfAbsent(folder, f -> new Object())) {
+            List<Path> entries = listEntries(folder, excludedFileName);
+            String fingerprint = fingerprint(entries);
+            Path bundleDir = folder.resolve(BUNDLE_DIR);
+            Path bundle = bundleDir.resolve(bundleName + "-" + fingerprint + ".zip");
+
+            if (!Files.exists(bundle)) {
+                Files.createDirectories(bundleDir);
+                long started = System.currentTimeMillis();
+                buildStoredZip(entries, bundle);
+                removeStaleBundles(bundleDir, bundle);
+                LOG.info("ZIP bundle built for {}: {} files in {} ms", folder.getFileName(), entries.size(),
+                        System.currentTimeMillis() - started);
+            }
+            FileChannel channel = FileChannel.open(bundle, StandardOpenOption.READ);
+            return new Bundle(channel, fingerprint, channel.size());
+        }
+    }
+
+    /** Copies {@code length} bytes of the bundle starting at {@code offset} to the target channel. */
+    public void transfer(Bundle bundle, long offset, long length, WritableByteChannel target) throws IOException {
+        FileChannel channel = bundle.channel();
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) break; // client went away or file shrank
+            position += sent;
+        }
+    }
+
+    /**
+     * Parses a {@code bytes=} range header into inclusive bounds of the first satisfiable range
+     * ("a-b", "a-" or "-suffix"). Returns null when the header is not a valid byte range and must be
+     * ignored (full response), or {@link #UNSATISFIABLE} when it is valid but no range overlaps the
+     * bundle (RFC 9110 §14.2).
+     */
+    public static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) return null;
+        long[] first = null;
+        boolean parsed = false;
+        for (String part : header.substring(6).split(",")) {
+            String spec = part.trim();
+            if (spec.isEmpty()) continue;
+            int dash = spec.indexOf('-');
+            if (dash < 0) return null;
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            if (!isDigits(to) && !(to.isEmpty() && isDigits(from))) return null;
+            if (!from.isEmpty() && !isDigits(from)) return null;
+            long[] range;
+            try {
+                range = from.isEmpty() ? suffixRange(Long.parseLong(to), size) : firstLastRange(from, to, size);
+            } catch (NumberFormatException e) {
+                return null; // overflowing positions
+            }
+            if (range == null) return null;
+            if (first == null && range.length > 0) first = range;
+            parsed = true;
+        }
+        if (!parsed) return null;
+        return first != null ? first : UNSATISFIABLE;
+    }
+
+    private static long[] suffixRange(long suffix, long size) {
+        return suffix == 0 || size == 0 ? UNSATISFIABLE : new long[]{Math.max(0, size - suffix), size - 1};
+    }
+
+    /** Null when last < first, which makes the whole header invalid. */
+    private static long[] firstLastRange(String from, String to, long size) {
+        long start = Long.parseLong(from);
+        Long last = to.isEmpty() ? null : Long.parseLong(to);
+        if (last != null && last < start) return null;
+        if (start >= size) return UNSATISFIABLE;
+        return new long[]{start, last == null ? size - 1 : Math.min(last, size - 1)};
+    }
+
+    private static boolean isDigits(String value) {
+        return !value.isEmpty() && value.chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+
+    // ==========================================
+    // BUNDLE CONSTRUCTION
+    // ==========================================
+
+    private List<Path> listEntries(Path folder, String excludedFileName) throws IOException {
+        try (Stream<Path> paths = Files.list(folder)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        // Dot-files are in-progress merge checkpoints
+                        return !name.startsWith(".")
+                                && name.toLowerCase().endsWith(".pdf")
+                                && !name.equalsIgnoreCase(excludedFileName);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private String fingerprint(List<Path> entries) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path entry : entries) {
+                String line = entry.getFileName() + "|" + Files.size(entry) + "|"
+                        + Files.getLastModifiedTime(entry).toMillis() + "\n";
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /** STORED entries must declare size and CRC before their data, hence the extra read per file. */
+    private void buildStoredZip(List<Path> entries, Path bundle) throws IOException {
+        Path partial = Files.createTempFile(bundle.getParent(), ".building-", ".zip");
+        try {
+            try (OutputStream out = Files.newOutputStream(partial);
+                 ZipOutputStream zos = new ZipOutputStream(out)) {
+                zos.setMethod(ZipOutputStream.STORED);
+                for (Path path : entries) {
+                    ZipEntry entry = new ZipEntry(path.getFileName().toString());
+                    long size = Files.size(path);
+                    entry.setSize(size);
+                    entry.setCompressedSize(size);
+                    entry.setCrc(crcOf(path));
+                    entry.setLastModifiedTime(Files.getLastModifiedTime(path));
+                    zos.putNextEntry(entry);
+                    Files.copy(path, zos);
+                    zos.closeEntry();
+                }
+            }
+            Files.move(partial, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private long crcOf(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    private void removeStaleBundles(Path bundleDir, Path current) {
+        try (Stream<Path> old = Files.list(bundleDir)) {
+            old.filter(path -> !path.equals(current) && !path.getFileName().toString().startsWith("."))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            LOG.warn("Could not remove stale bundle {}: {}", path.getFileName(), e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            LOG.warn("Could not clean bundle cache in {}: {}", bundleDir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.beu.result.DocumentArchival.service;
+
+import com.beu.result.DocumentArchival.entity.ArchiveManifestEntry;
+import com.beu.result.DocumentArchival.repository.ArchiveManifestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for archived transcripts.
+ * <p>
+ * Each transcript is kept once as {@code <storage>/.artifacts/<ab>/<source hash>.pdf}; the
+ * {@code <regNo>.pdf} files in a batch folder are hard links to those blobs (or copies where the
+ * file system cannot link). Blobs are named by what they were rendered from rather than by their
+ * bytes: PDF renders embed a creation date and a random document ID, so rendering the same record
+ * twice never yields the same bytes. The SHA-256 of the bytes is still recorded in the manifest
+ * as an integrity check. The {@code archive_manifest} table also records the source hash, so a
+ * re-run can skip records whose source data has not changed.
+ * </p>
+ * <p>
+ * A blob that no batch folder links to any more (link count 1, e.g. after its record was
+ * re-archived from changed data) is deleted by {@link #sweep}. Publishing and sweeping exclude
+ * each other, so a blob is never swept between the existence check and the link.
+ * </p>
+ */
+@Service
+public class ArtifactStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactStore.class);
+
+    static final String STORE_DIR = ".artifacts";
+
+    private final ArchiveManifestRepository manifestRepository;
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+
+    public ArtifactStore(ArchiveManifestRepository manifestRepository) {
+        this.manifestRepository = manifestRepository;
+    }
+
+    /** Manifest entries of a link's registration range, by registration number. */
+    public Map<Long, ArchiveManifestEntry> loadManifest(String linkKey, long startReg, long endReg) {
+        Map<Long, ArchiveManifestEntry> manifest = new HashMap<>();
+        for (ArchiveManifestEntry entry : manifestRepository.findByLinkKeyAndRegistrationNumberBetween(linkKey, startReg, endReg)) {
+            manifest.put(entry.getRegistrationNumber(), entry);
+        }
+        return manifest;
+    }
+
+    /** True when the record was last archived from the same source data and its file is still there. */
+    public boolean isUnchanged(ArchiveManifestEntry entry, String sourceHash, Path target) {
+        return entry != null && sourceHash != null
+                && sourceHash.equals(entry.getSourceHash())
+                && target.toString().equals(entry.getFilePath())
+                && Files.exists(target);
+    }
+
+    /**
+     * Stores the PDF under its source hash (once) and publishes it at {@code target}. When a blob
+     * of the same source already exists it is published instead of {@code content}.
+     * Returns the manifest entry to persist; the caller batches the saves.
+     */
+    public ArchiveManifestEntry publish(Path storageRoot, Path target, String linkKey, long regNo,
+                                        String sourceHash, byte[] content) throws IOException {
+        storeLock.readLock().lock();
+        try {
+            return publishLocked(storageRoot, target, linkKey, regNo, sourceHash, content);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private ArchiveManifestEntry publishLocked(Path storageRoot, Path target, String linkKey, long regNo,
+                                               String sourceHash, byte[] content) throws IOException {
+        String blobName = sourceHash != null ? sourceHash : sha256(content);
+        Path blob = storageRoot.resolve(STORE_DIR).resolve(blobName.substring(0, 2)).resolve(blobName + ".pdf");
+        String contentHash;
+        long size;
+        if (Files.exists(blob)) {
+            // Blobs never change once written: the name says what is in it
+            contentHash = sourceHash != null ? knownContentHash(sourceHash, blob) : blobName;
+            size = Files.size(blob);
+        } else {
+            contentHash = sha256(content);
+            size = content.length;
+            Files.createDirectories(blob.getParent());
+            // Not createTempFile: its owner-only permissions would carry over to the published links
+            Path partial = blob.resolveSibling(".blob-" + UUID.randomUUID() + ".pdf");
+            Files.write(partial, content);
+            Files.move(partial, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // Never write through an existing link: it may share its blob with other records
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, blob);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.debug("Hard link unavailable for {}, copying: {}", target.getFileName(), e.getMessage());
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        ArchiveManifestEntry entry = new ArchiveManifestEntry(linkKey, regNo);
+        entry.setSourceHash(sourceHash);
+        entry.setContentHash(contentHash);
+        entry.setSizeBytes(size);
+        entry.setFilePath(target.toString());
+        entry.setArchivedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    /** Hash recorded when the blob was first published; hashed again only if that entry is gone. */
+    private String knownContentHash(String sourceHash, Path blob) throws IOException {
+        String recorded = manifestRepository.findFirstBySourceHash(sourceHash)
+                .map(ArchiveManifestEntry::getContentHash).orElse(null);
+        return recorded != null ? recorded : sha256(Files.readAllBytes(blob));
+    }
+
+    /**
+     * Deletes blobs no batch folder links to any more, and partial writes left by a crash.
+     * Needs hard-link counts; on file systems without them (where batch folders hold copies
+     * anyway) nothing is swept. Returns the number of files deleted.
+     */
+    public int sweep(Path storageRoot) {
+        Path store = storageRoot.resolve(STORE_DIR);
+        if (!Files.isDirectory(store)) return 0;
+
+        long start = System.currentTimeMillis();
+        int deleted = 0;
+        storeLock.writeLock().lock();
+        try {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(store, 2)) {
+                files = walk.filter(Files::isRegularFile).toList();
+            }
+            for (Path file : files) {
+                boolean partial = file.getFileName().toString().startsWith(".blob-");
+                if ((partial || linkCount(file) <= 1) && Files.deleteIfExists(file)) deleted++;
+            }
+        } catch (UnsupportedOperationException e) {
+            LOG.debug("Link counts unavailable under {}, artifact sweep skipped", store);
+        } catch (IOException e) {
+            LOG.warn("Artifact sweep under {} stopped: {}", store, e.getMessage());
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+        if (deleted > 0) {
+            LOG.info("Swept {} unreferenced artifacts in {}ms", deleted, System.currentTimeMillis() - start);
+        }
+        return deleted;
+    }
+
+    private static int linkCount(Path file) throws IOException {
+        return (Integer) Files.getAttribute(file, "unix:nlink");
+    }
+
+    public void saveManifest(Collection<ArchiveManifestEntry> entries) {
+        if (!entries.isEmpty()) manifestRepository.saveAll(entries);
+    }
+
+    public static String sha256(String text) {
+        return sha256(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
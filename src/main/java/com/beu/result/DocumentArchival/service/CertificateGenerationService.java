@@ -1,13 +1,22 @@
 package com.beu.result.DocumentArchival.service;
 
 import com.beu.result.AcademicAnalytics.config.ResultSourceConfig;
+import com.beu.result.AcademicAnalytics.config.UrlTemplate;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.beu.result.AcademicAnalytics.service.BrowserPool;
+import com.beu.result.AcademicAnalytics.service.PageReadinessProbe;
+import com.beu.result.AcademicAnalytics.service.PageStatus;
+import com.beu.result.AcademicAnalytics.service.PipelineMetrics;
 import com.beu.result.DocumentArchival.config.ArchivalJobRequest;
+import com.beu.result.DocumentArchival.entity.ArchiveManifestEntry;
 import com.beu.result.DocumentArchival.util.ArchivalTelemetry;
 import com.microsoft.playwright.*;
-import com.microsoft.playwright.options.WaitUntilState;
+import com.microsoft.playwright.options.LoadState;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -16,30 +25,115 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service responsible for PDF certificate generation and archival.
  * Optimized for Standalone Linux/Debian Deployment.
+ * <p>
+ * Runs as a three-stage pipeline: {@code archival.fetch-workers} pages navigate and settle
+ * in parallel, at most {@code archival.render-concurrency} of them print at a time, and a
+ * single writer thread persists the bytes from a bounded queue. A full queue blocks the
+ * renderers and a busy render stage blocks the fetchers, so memory stays bounded. A failure
+ * on one artifact never stops the writer; should the writer die anyway, producers stop
+ * waiting on the queue and the job fails instead of hanging.
+ * </p>
+ * <p>
+ * With {@code archival.merge-mode=incremental} (default) the writer appends each transcript
+ * to the merged PDF in registration order as it lands, so the merged file is saved as soon as
+ * the last record is written. {@code batch} keeps the old end-of-job folder merge.
+ * </p>
+ * <p>
+ * Render modes: {@code portal} (default) prints every record from the live result page;
+ * {@code local} renders stored records with {@link LocalTranscriptRenderer} on
+ * {@code archival.local-render-threads} threads and never touches the portal; {@code hybrid}
+ * renders stored records locally and sends only the rest through the browser stages. Local
+ * transcripts carry the semester SGPA summary, not the portal's subject and marks tables, so a
+ * hybrid merge mixes both layouts.
+ * </p>
+ * <p>
+ * Transcripts are published through the {@link ArtifactStore}: identical PDFs share one blob, and
+ * a record whose source data hash matches the manifest is not rendered again. Error screenshots
+ * go to the batch's {@code errors/} folder.
+ * </p>
  */
 @Service
 public class CertificateGenerationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CertificateGenerationService.class);
 
+    // Registrations loaded and rendered per local render task
+    private static final int LOCAL_SLICE_SIZE = 100;
+    // Manifest rows saved per transaction by the writer
+    private static final int MANIFEST_FLUSH_SIZE = 50;
+
+    // How long a cancelled job waits for the writer to leave a merge append or checkpoint save
+    private static final long WRITER_STOP_TIMEOUT_MS = 30_000;
+
     private final ArchivalTelemetry telemetry;
     private final ResultSourceConfig sourceConfig;
-
-    public CertificateGenerationService(ArchivalTelemetry telemetry, ResultSourceConfig sourceConfig) {
+    private final BrowserPool browserPool;
+    private final PageReadinessProbe readinessProbe;
+    private final LocalTranscriptRenderer localRenderer;
+    private final ArtifactStore artifactStore;
+    private final PipelineMetrics metrics;
+    private final String defaultRenderMode;
+    private final int localRenderThreads;
+    private final int fetchWorkers;
+    private final int renderConcurrency;
+    private final int writeQueueCapacity;
+    private final boolean incrementalMerge;
+    private final int mergeCheckpointEvery;
+
+    public CertificateGenerationService(ArchivalTelemetry telemetry, ResultSourceConfig sourceConfig,
+                                        BrowserPool browserPool, PageReadinessProbe readinessProbe,
+                                        LocalTranscriptRenderer localRenderer, ArtifactStore artifactStore,
+                                        PipelineMetrics metrics,
+                                        @Value("${archival.render-mode:portal}") String defaultRenderMode,
+                                        @Value("${archival.local-render-threads:0}") int localRenderThreads,
+                                        @Value("${archival.fetch-workers:3}") int fetchWorkers,
+                                        @Value("${archival.render-concurrency:2}") int renderConcurrency,
+                                        @Value("${archival.write-queue-capacity:16}") int writeQueueCapacity,
+                                        @Value("${archival.merge-mode:incremental}") String mergeMode,
+                                        @Value("${archival.merge-checkpoint-every:200}") int mergeCheckpointEvery) {
         this.telemetry = telemetry;
         this.sourceConfig = sourceConfig;
+        this.browserPool = browserPool;
+        this.readinessProbe = readinessProbe;
+        this.localRenderer = localRenderer;
+        this.artifactStore = artifactStore;
+        this.metrics = metrics;
+        this.defaultRenderMode = defaultRenderMode;
+        this.localRenderThreads = localRenderThreads > 0 ? localRenderThreads : Runtime.getRuntime().availableProcessors();
+        this.fetchWorkers = Math.max(1, fetchWorkers);
+        this.renderConcurrency = Math.max(1, renderConcurrency);
+        this.writeQueueCapacity = Math.max(1, writeQueueCapacity);
+        this.incrementalMerge = !"batch".equalsIgnoreCase(mergeMode);
+        this.mergeCheckpointEvery = mergeCheckpointEvery;
     }
 
     @Async
     public void generateCertificates(ArchivalJobRequest jobRequest) {
-        String urlTemplate = sourceConfig.getUrl(jobRequest.getLinkKey());
+        String renderMode = jobRequest.getRenderMode() != null ? jobRequest.getRenderMode() : defaultRenderMode;
+        UrlTemplate urlTemplate = sourceConfig.getTemplate(jobRequest.getLinkKey());
         if (urlTemplate == null) {
             LOG.error("ABORTING: No configuration found for Data Source '{}'", jobRequest.getLinkKey());
             return;
@@ -55,88 +149,448 @@ public class CertificateGenerationService {
         File outputDir = Paths.get(jobRequest.getStorageLocation(), safeBatchName).toFile();
         if (!outputDir.exists()) outputDir.mkdirs();
 
-        // 1. Initialize Playwright with strict Linux/Debian configuration
-        try (Playwright playwright = Playwright.create()) {
-
-            // Define Linux bundled path
-            String appPath = System.getProperty("user.dir");
-            Path bundledPath = Paths.get(appPath, "browsers", "linux", "chrome-linux", "chrome");
-
-            // 2. Configure Linux-specific launch options to prevent SIGTRAP crashes
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setArgs(Arrays.asList(
-                            "--no-sandbox",              // Required for execution in /opt
-                            "--disable-setuid-sandbox",  // Fixes SIGTRAP fatal error
-                            "--disable-dev-shm-usage",   // Prevents shared memory crashes
-                            "--disable-gpu"              // Optimizes resource usage
-                    ));
-
-            // 3. Tiered Browser Resolution (Bundled -> System -> Download)
-            if (Files.exists(bundledPath)) {
-                launchOptions.setExecutablePath(bundledPath);
-                LOG.info("Archival Engine: Using bundled browser at {}", bundledPath);
+        // 1. Writer stage: persists rendered bytes; its bounded queue throttles the renderers
+        String mergedFileName = "Merged_Transcript_" + safeBatchName + ".pdf";
+        IncrementalPdfMerger merger = incrementalMerge
+                ? new IncrementalPdfMerger(outputDir.toPath().resolve(mergedFileName), startReg, mergeCheckpointEvery)
+                : null;
+        BlockingQueue<ArchivedArtifact> writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+        BatchContext batch = new BatchContext(jobRequest.getLinkKey(), Paths.get(jobRequest.getStorageLocation()),
+                outputDir.toPath(), artifactStore.loadManifest(jobRequest.getLinkKey(), startReg, endReg), writeQueue,
+                new AtomicBoolean(false));
+        Thread writer = new Thread(() -> drainArtifacts(batch, merger), "archival-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        try {
+            // 2. Local stage: stored records are rendered from the database; the rest go to the portal
+            Queue<Long> portalRecords = new ConcurrentLinkedQueue<>();
+            if ("portal".equalsIgnoreCase(renderMode)) {
+                for (long regNo = startReg; regNo <= endReg; regNo++) portalRecords.add(regNo);
             } else {
-                LOG.warn("Bundled browser NOT found at {}. Attempting system default/download.", bundledPath);
+                List<Long> notStored = renderStoredRecords(batch, startReg, endReg);
+                if ("local".equalsIgnoreCase(renderMode)) {
+                    for (long regNo : notStored) {
+                        reportRecord(batch.linkKey(), regNo, "NOT_STORED", null, "Skipped (NOT_STORED): " + regNo);
+                        batch.submit(ArchivedArtifact.noTranscript(regNo));
+                    }
+                } else {
+                    portalRecords.addAll(notStored);
+                }
             }
 
-            try (Browser browser = playwright.chromium().launch(launchOptions);
-                 BrowserContext context = browser.newContext(new Browser.NewContextOptions().setViewportSize(1280, 1024))) {
-
-                Page page = context.newPage();
+            // 3. Fetch stage: each worker owns one leased page; rendering is gated by a shared semaphore
+            if (!portalRecords.isEmpty()) {
+                LOG.info("Printing {} records from the live portal", portalRecords.size());
+                fetchFromPortal(urlTemplate, portalRecords, batch);
+            }
 
-                for (long currentReg = startReg; currentReg <= endReg; currentReg++) {
-                    processSingleRecord(page, urlTemplate, currentReg, outputDir.getAbsolutePath());
-                }
+            // 4. Drain the writer; in incremental mode it saves the merged transcript as it finishes
+            batch.submit(ArchivedArtifact.END_OF_STREAM);
+            writer.join();
 
-                String mergedFileName = "Merged_Transcript_" + safeBatchName + ".pdf";
+            if (merger == null) {
                 LOG.info("Initiating Merge Sequence inside folder: {}", outputDir.getName());
                 mergePdfArtifacts(outputDir.getAbsolutePath(), mergedFileName);
             }
 
+            // 5. Drop the blobs whose last link this run replaced
+            artifactStore.sweep(batch.storageRoot());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Archival job interrupted");
         } catch (Exception e) {
             LOG.error("Critical Failure in Archival Engine", e);
         } finally {
-            telemetry.finalizeJob();
-            LOG.info("Archival Job Terminated.");
+            writer.interrupt();
+            try {
+                stopWriter(writer, merger);
+            } finally {
+                telemetry.finalizeJob();
+                LOG.info("Archival Job Terminated.");
+            }
+        }
+    }
+
+    /**
+     * Waits for the writer to exit before closing the merger: the writer may still be inside an
+     * append or a checkpoint save, and PDFBox documents are not thread-safe. A writer that does
+     * not stop in time keeps the merger; its resources are left to it rather than closed under it.
+     */
+    private void stopWriter(Thread writer, IncrementalPdfMerger merger) {
+        boolean interrupted = Thread.interrupted(); // join() would throw straight away on a cancelled job
+        try {
+            writer.join(WRITER_STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        try {
+            if (merger == null) return;
+            if (writer.isAlive()) {
+                LOG.warn("Archival writer did not stop within {}ms, leaving the merged transcript open", WRITER_STOP_TIMEOUT_MS);
+            } else {
+                merger.close();
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==========================================
+    // PIPELINE STAGES
+    // ==========================================
+
+    private enum ArtifactKind { TRANSCRIPT, UNCHANGED, NO_TRANSCRIPT, ERROR_SCREENSHOT, END_OF_STREAM }
+
+    /**
+     * Work for the writer stage. UNCHANGED and NO_TRANSCRIPT carry no bytes: they only let the
+     * merge move past the record, with the transcript already on disk or with nothing.
+     * {@code startedNanos} is when work on the record began, for the per-record timing the
+     * writer reports once the record is closed out (0 where it does not report).
+     */
+    private record ArchivedArtifact(long regNo, ArtifactKind kind, byte[] content, String sourceHash, long startedNanos) {
+        static final ArchivedArtifact END_OF_STREAM = new ArchivedArtifact(-1, ArtifactKind.END_OF_STREAM, null, null, 0);
+
+        static ArchivedArtifact transcript(long regNo, byte[] pdf, String sourceHash, long startedNanos) {
+            return new ArchivedArtifact(regNo, ArtifactKind.TRANSCRIPT, pdf, sourceHash, startedNanos);
+        }
+
+        static ArchivedArtifact unchanged(long regNo, long startedNanos) {
+            return new ArchivedArtifact(regNo, ArtifactKind.UNCHANGED, null, null, startedNanos);
+        }
+
+        static ArchivedArtifact noTranscript(long regNo) {
+            return new ArchivedArtifact(regNo, ArtifactKind.NO_TRANSCRIPT, null, null, 0);
+        }
+
+        static ArchivedArtifact errorScreenshot(long regNo, byte[] png) {
+            return new ArchivedArtifact(regNo, ArtifactKind.ERROR_SCREENSHOT, png, null, 0);
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        }
+    }
+
+    /**
+     * What every stage of one archival run shares: where it writes, what was archived before,
+     * and the writer's queue. {@code writerStopped} is set when the writer thread exits.
+     */
+    private record BatchContext(String linkKey, Path storageRoot, Path outputDir,
+                                Map<Long, ArchiveManifestEntry> manifest,
+                                BlockingQueue<ArchivedArtifact> writeQueue,
+                                AtomicBoolean writerStopped) {
+
+        Path transcriptFile(long regNo) {
+            return outputDir.resolve(regNo + ".pdf");
+        }
+
+        /**
+         * Hands an artifact to the writer, blocking while its queue is full.
+         *
+         * @throws IllegalStateException once the writer has stopped, instead of waiting forever
+         */
+        void submit(ArchivedArtifact artifact) throws InterruptedException {
+            while (!writeQueue.offer(artifact, 1, TimeUnit.SECONDS)) {
+                if (writerStopped.get()) {
+                    throw new IllegalStateException("Archival writer stopped, record " + artifact.regNo() + " cannot be written");
+                }
+            }
+        }
+    }
+
+    private boolean isUnchanged(BatchContext batch, long regNo, String sourceHash) {
+        return artifactStore.isUnchanged(batch.manifest().get(regNo), sourceHash, batch.transcriptFile(regNo));
+    }
+
+    /**
+     * Renders every stored record of the range on {@code archival.local-render-threads} threads,
+     * one slice of registrations per task. Returns the registrations that could not be
+     * rendered locally (no stored result, or a render failure), in order.
+     */
+    private List<Long> renderStoredRecords(BatchContext batch, long startReg, long endReg) throws InterruptedException {
+        Queue<Long> notStored = new ConcurrentLinkedQueue<>();
+        ExecutorService renderPool = Executors.newFixedThreadPool(localRenderThreads, new ArchivalWorkerFactory("archival-render-"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long from = startReg; from <= endReg; from += LOCAL_SLICE_SIZE) {
+                long sliceStart = from;
+                long sliceEnd = Math.min(endReg, from + LOCAL_SLICE_SIZE - 1);
+                futures.add(renderPool.submit(() -> {
+                    renderSlice(batch, sliceStart, sliceEnd, notStored);
+                    return null;
+                }));
+            }
+            awaitAll(futures, "Local render worker");
+        } finally {
+            renderPool.shutdownNow();
         }
+        List<Long> remaining = new ArrayList<>(notStored);
+        remaining.sort(null);
+        LOG.info("Covered {} records from stored data, {} not covered",
+                (endReg - startReg + 1) - remaining.size(), remaining.size());
+        return remaining;
     }
 
-    private void processSingleRecord(Page page, String urlTemplate, long regNo, String outputDir) {
-        String statusMessage;
+    private void renderSlice(BatchContext batch, long sliceStart, long sliceEnd, Queue<Long> notStored) throws InterruptedException {
+        Map<Long, StudentInformations> stored = new HashMap<>();
         try {
-            String targetUrl = urlTemplate.replace("{REG}", String.valueOf(regNo));
+            for (StudentInformations student : localRenderer.loadStored(sliceStart, sliceEnd)) {
+                if (localRenderer.isRenderable(student)) stored.put(student.getRegistrationNumber(), student);
+            }
+        } catch (RuntimeException e) {
+            // Close out every record of the slice: the merge waits for each registration number in turn
+            LOG.error("Loading stored records {}-{} failed", sliceStart, sliceEnd, e);
+            for (long regNo = sliceStart; regNo <= sliceEnd; regNo++) {
+                reportRecord(batch.linkKey(), regNo, PipelineMetrics.OUTCOME_ERROR, null, "Error: " + regNo);
+                batch.submit(ArchivedArtifact.noTranscript(regNo));
+            }
+            return;
+        }
+        for (long regNo = sliceStart; regNo <= sliceEnd; regNo++) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            if (batch.writerStopped().get()) return;
+            StudentInformations student = stored.get(regNo);
+            if (student == null) {
+                notStored.add(regNo);
+                continue;
+            }
+            long recordStart = System.nanoTime();
+            String sourceHash = localRenderer.sourceHash(student);
+            if (isUnchanged(batch, regNo, sourceHash)) {
+                batch.submit(ArchivedArtifact.unchanged(regNo, recordStart));
+                continue;
+            }
+            try {
+                long renderStart = System.nanoTime();
+                byte[] pdf = localRenderer.render(student, batch.linkKey());
+                metrics.recordStage(PipelineMetrics.STAGE_LOCAL_RENDER, batch.linkKey(), PageStatus.READY.name(), System.nanoTime() - renderStart);
+                batch.submit(ArchivedArtifact.transcript(regNo, pdf, sourceHash, recordStart));
+            } catch (IOException | RuntimeException e) {
+                LOG.error("[Record {}] Local render failed: {}", regNo, e.getMessage());
+                notStored.add(regNo);
+            }
+        }
+    }
 
-            page.navigate(targetUrl, new Page.NavigateOptions()
-                    .setTimeout(45000)
-                    .setWaitUntil(WaitUntilState.NETWORKIDLE));
+    /** Runs the browser stages over the given registrations until the queue is drained. */
+    private void fetchFromPortal(UrlTemplate urlTemplate, Queue<Long> registrations, BatchContext batch) throws InterruptedException {
+        Semaphore renderSlots = new Semaphore(renderConcurrency);
+        int workers = Math.max(1, Math.min(fetchWorkers, registrations.size()));
+        ExecutorService fetchPool = Executors.newFixedThreadPool(workers, new ArchivalWorkerFactory("archival-fetch-"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(fetchPool.submit(() -> runFetchWorker(urlTemplate, registrations, renderSlots, batch)));
+            }
+            awaitAll(futures, "Archival worker");
+        } finally {
+            fetchPool.shutdownNow();
+        }
+    }
 
-            PageStatus status = waitForDataCompleteness(page);
+    private void awaitAll(List<Future<?>> futures, String workerName) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                LOG.error("{} terminated abnormally", workerName, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Fetch worker: claims registration numbers from the shared queue, navigates and
+     * settles its own page, then waits for a render slot to print it. Playwright objects
+     * are thread-confined, so the page never leaves this worker; only the bytes do.
+     */
+    private void runFetchWorker(UrlTemplate urlTemplate, Queue<Long> registrations, Semaphore renderSlots, BatchContext batch) {
+        BrowserPool.Lease lease = null;
+        Page page = null;
+        try {
+            Long regNo;
+            while (!batch.writerStopped().get() && (regNo = registrations.poll()) != null && !Thread.currentThread().isInterrupted()) {
+                // Hand the browser back for recycling once it is spent or has crashed
+                if (lease == null || lease.isExhausted() || !lease.isHealthy() || page.isClosed()) {
+                    if (lease != null) lease.close();
+                    lease = browserPool.acquire(1280, 1024);
+                    page = lease.context().newPage();
+                }
+                lease.pageServed();
+                processSingleRecord(page, urlTemplate, regNo, renderSlots, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (lease != null) lease.close();
+        }
+    }
+
+    /**
+     * Writer stage: the only thread touching the output folder and the manifest while the job runs.
+     * With a merger, each record is appended to the merged transcript as soon as it is written.
+     * A runtime failure on one artifact is logged and the writer moves on to the next: producers
+     * block on its queue, so a dead writer would stall the whole job.
+     */
+    private void drainArtifacts(BatchContext batch, IncrementalPdfMerger merger) {
+        List<ArchiveManifestEntry> manifestUpdates = new ArrayList<>();
+        try {
+            ArchivedArtifact artifact;
+            while ((artifact = batch.writeQueue().take()) != ArchivedArtifact.END_OF_STREAM) {
+                try {
+                    writeArtifact(batch, merger, artifact, manifestUpdates);
+                } catch (RuntimeException e) {
+                    LOG.error("[Record {}] Archival writer failed on {} artifact", artifact.regNo(), artifact.kind(), e);
+                }
+            }
+            if (merger != null) {
+                long finishStart = System.nanoTime();
+                merger.finish();
+                metrics.recordStage(PipelineMetrics.STAGE_MERGE, batch.linkKey(), "FINISH", System.nanoTime() - finishStart);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Archival writer interrupted with {} artifacts pending", batch.writeQueue().size());
+        } catch (IOException e) {
+            LOG.error("Failed to save merged transcript", e);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to save merged transcript", e);
+        } finally {
+            flushManifest(manifestUpdates);
+            batch.writerStopped().set(true);
+        }
+    }
+
+    private void writeArtifact(BatchContext batch, IncrementalPdfMerger merger, ArchivedArtifact artifact,
+                               List<ArchiveManifestEntry> manifestUpdates) {
+        long regNo = artifact.regNo();
+        if (artifact.kind() == ArtifactKind.ERROR_SCREENSHOT) {
+            writeErrorScreenshot(batch.outputDir(), artifact);
+            return;
+        }
+
+        Path transcript = null;
+        if (artifact.kind() == ArtifactKind.TRANSCRIPT) {
+            transcript = publishTranscript(batch, artifact, manifestUpdates);
+        } else if (artifact.kind() == ArtifactKind.UNCHANGED) {
+            transcript = batch.transcriptFile(regNo);
+            reportRecord(batch.linkKey(), regNo, "UNCHANGED", artifact.elapsedMillis(), "Unchanged: " + regNo);
+        }
+        if (merger != null) mergeQuietly(merger, batch.linkKey(), regNo, transcript);
+        if (manifestUpdates.size() >= MANIFEST_FLUSH_SIZE) flushManifest(manifestUpdates);
+    }
+
+    private Path publishTranscript(BatchContext batch, ArchivedArtifact artifact, List<ArchiveManifestEntry> manifestUpdates) {
+        Path target = batch.transcriptFile(artifact.regNo());
+        long writeStart = System.nanoTime();
+        try {
+            manifestUpdates.add(artifactStore.publish(batch.storageRoot(), target, batch.linkKey(),
+                    artifact.regNo(), artifact.sourceHash(), artifact.content()));
+            metrics.recordStage(PipelineMetrics.STAGE_PDF_WRITE, batch.linkKey(), PageStatus.READY.name(), System.nanoTime() - writeStart);
+            reportRecord(batch.linkKey(), artifact.regNo(), "ARCHIVED", artifact.elapsedMillis(), "Archived: " + artifact.regNo());
+            return target;
+        } catch (IOException | RuntimeException e) {
+            metrics.recordStage(PipelineMetrics.STAGE_PDF_WRITE, batch.linkKey(), PipelineMetrics.OUTCOME_ERROR, System.nanoTime() - writeStart);
+            LOG.error("[Record {}] Could not write {}: {}", artifact.regNo(), target.getFileName(), e.getMessage());
+            reportRecord(batch.linkKey(), artifact.regNo(), PipelineMetrics.OUTCOME_ERROR, artifact.elapsedMillis(), "Error: " + artifact.regNo());
+            return null;
+        }
+    }
+
+    private void writeErrorScreenshot(Path outputDir, ArchivedArtifact artifact) {
+        try {
+            Path errorDir = Files.createDirectories(outputDir.resolve("errors"));
+            Files.write(errorDir.resolve("ERROR_" + artifact.regNo() + ".png"), artifact.content());
+        } catch (IOException e) {
+            LOG.warn("[Record {}] Could not save error screenshot: {}", artifact.regNo(), e.getMessage());
+        }
+    }
+
+    private void flushManifest(List<ArchiveManifestEntry> manifestUpdates) {
+        try {
+            artifactStore.saveManifest(manifestUpdates);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to update archive manifest ({} entries)", manifestUpdates.size(), e);
+        }
+        manifestUpdates.clear();
+    }
+
+    /** Closes out one record: dashboard progress event plus the outcome counter. */
+    private void reportRecord(String linkKey, long regNo, String outcome, Long elapsedMillis, String statusMessage) {
+        telemetry.recordProcessed(regNo, outcome, elapsedMillis, statusMessage);
+        metrics.countRecord(PipelineMetrics.PIPELINE_ARCHIVAL, linkKey, outcome);
+    }
+
+    private static long elapsedMillisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private void mergeQuietly(IncrementalPdfMerger merger, String linkKey, long regNo, Path transcript) {
+        long mergeStart = System.nanoTime();
+        try {
+            merger.accept(regNo, transcript);
+            metrics.recordStage(PipelineMetrics.STAGE_MERGE, linkKey, transcript != null ? "APPEND" : "SKIP", System.nanoTime() - mergeStart);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordStage(PipelineMetrics.STAGE_MERGE, linkKey, PipelineMetrics.OUTCOME_ERROR, System.nanoTime() - mergeStart);
+            // A corrupt transcript must not stall the merge of the records after it
+            LOG.error("[Record {}] Could not append to merged transcript: {}", regNo, e.getMessage());
+            try {
+                merger.accept(regNo, null);
+            } catch (IOException | RuntimeException ignored) {}
+        }
+    }
+
+    private void processSingleRecord(Page page, UrlTemplate urlTemplate, long regNo, Semaphore renderSlots, BatchContext batch)
+            throws InterruptedException {
+        long recordStart = System.nanoTime();
+        try {
+            String targetUrl = urlTemplate.expand(regNo);
+
+            PageReadinessProbe.Outcome readiness = readinessProbe.navigateAndAwait(page, targetUrl, 45000, 15000);
+            PageStatus status = readiness.status();
+            metrics.recordPageLoad(batch.linkKey(), readiness);
 
             if (status == PageStatus.READY) {
-                // Ensure specific rendering delay for Angular/Legacy hybrid apps
-                if (page.locator("#container").count() > 0 && page.locator("app-root").count() == 0) {
-                    page.waitForTimeout(500);
+                String sourceHash = ArtifactStore.sha256("portal|" + page.innerText("body"));
+                if (isUnchanged(batch, regNo, sourceHash)) {
+                    batch.submit(ArchivedArtifact.unchanged(regNo, recordStart));
+                    LOG.info("[Record {}] Unchanged since last archive, not re-rendered.", regNo);
+                    return;
                 }
+
+                // Data is on screen; make sure stylesheets and logos have finished loading before printing
+                page.waitForLoadState(LoadState.LOAD);
                 cleanLegacyUI(page);
 
-                Path pdfPath = Paths.get(outputDir, regNo + ".pdf");
-                printDynamicPdf(page, pdfPath);
+                byte[] pdf;
+                renderSlots.acquire();
+                try {
+                    long renderStart = System.nanoTime();
+                    pdf = printDynamicPdf(page);
+                    metrics.recordStage(PipelineMetrics.STAGE_PDF_RENDER, batch.linkKey(), status.name(), System.nanoTime() - renderStart);
+                } finally {
+                    renderSlots.release();
+                }
+                // Blocks while the writer is behind, which in turn holds back fetching
+                batch.submit(ArchivedArtifact.transcript(regNo, pdf, sourceHash, recordStart));
 
-                LOG.info("[Record {}] Archived Successfully.", regNo);
-                statusMessage = "Archived: " + regNo;
+                LOG.info("[Record {}] Rendered (ready in {}ms).", regNo, readiness.elapsedMillis());
             } else {
-                if (status != PageStatus.NO_RECORD && status != PageStatus.EMPTY) {
-                    captureErrorState(page, outputDir, regNo);
+                if (status != PageStatus.NO_RECORD && status != PageStatus.EMPTY_TABLE) {
+                    captureErrorState(page, regNo, batch);
                 }
-                statusMessage = "Skipped (" + status + "): " + regNo;
+                reportRecord(batch.linkKey(), regNo, status.name(), elapsedMillisSince(recordStart), "Skipped (" + status + "): " + regNo);
+                batch.submit(ArchivedArtifact.noTranscript(regNo));
             }
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             LOG.error("[Record {}] Error: {}", regNo, e.getMessage());
-            statusMessage = "Error: " + regNo;
-            captureErrorState(page, outputDir, regNo);
+            reportRecord(batch.linkKey(), regNo, PipelineMetrics.OUTCOME_ERROR, elapsedMillisSince(recordStart), "Error: " + regNo);
+            captureErrorState(page, regNo, batch);
+            batch.submit(ArchivedArtifact.noTranscript(regNo));
         }
-        telemetry.updateStatus(statusMessage);
     }
 
     private void cleanLegacyUI(Page page) {
@@ -171,42 +625,7 @@ public class CertificateGenerationService {
         }
     }
 
-    private enum PageStatus { READY, EMPTY, NAME_EMPTY, NO_RECORD, LOADING }
-
-    private PageStatus waitForDataCompleteness(Page page) {
-        long startTime = System.currentTimeMillis();
-        long timeout = 15000;
-
-        while (System.currentTimeMillis() - startTime < timeout) {
-            try {
-                if (page.locator("text=/No Record Found|Invalid Registration|Data Not Available/i").count() > 0) {
-                    return PageStatus.NO_RECORD;
-                }
-
-                Locator table = page.locator("table:has-text('Subject Code')").first();
-                boolean tableHasData = table.count() > 0 && table.locator("tr").count() > 2;
-                if (table.count() > 0 && !tableHasData) return PageStatus.EMPTY;
-
-                boolean nameExists = false;
-                Locator nameCell = page.locator("tr:has-text('Student Name') >> td").nth(1);
-                if (nameCell.count() == 0) nameCell = page.locator("#ContentPlaceHolder1_DataList1_StudentNameLabel_0");
-
-                if (nameCell.count() > 0) {
-                    String nameText = nameCell.innerText().trim();
-                    if (!nameText.isEmpty() && !nameText.equals("&nbsp;")) nameExists = true;
-                    else return PageStatus.NAME_EMPTY;
-                }
-
-                if (nameExists && tableHasData) return PageStatus.READY;
-                Thread.sleep(500);
-            } catch (Exception e) {
-                try { Thread.sleep(500); } catch (InterruptedException ignored) {}
-            }
-        }
-        return PageStatus.LOADING;
-    }
-
-    private void printDynamicPdf(Page page, Path pdfPath) {
+    private byte[] printDynamicPdf(Page page) {
         @SuppressWarnings("unchecked")
         Map<String, String> dimMap = (Map<String, String>) page.evaluate("""
             () => ({ 
@@ -215,9 +634,10 @@ public class CertificateGenerationService {
             })
         """);
         page.addStyleTag(new Page.AddStyleTagOptions().setContent("@media print { body { margin: 0; padding: 10px; } @page { margin: 0; } }"));
-        page.pdf(new Page.PdfOptions().setPath(pdfPath).setWidth(dimMap.get("width")).setHeight(dimMap.get("height")).setPrintBackground(true));
+        return page.pdf(new Page.PdfOptions().setWidth(dimMap.get("width")).setHeight(dimMap.get("height")).setPrintBackground(true));
     }
 
+    /** Batch merge mode: merges every transcript in the folder once the job is done. */
     private void mergePdfArtifacts(String folderPath, String outputFileName) {
         try {
             PDFMergerUtility pdfMerger = new PDFMergerUtility();
@@ -227,7 +647,7 @@ public class CertificateGenerationService {
             if (files != null && files.length > 0) {
                 Arrays.sort(files, Comparator.comparing(File::getName));
                 for (File file : files) pdfMerger.addSource(file);
-                pdfMerger.mergeDocuments(null);
+                pdfMerger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
                 LOG.info("Merged Document Created: {}", outputFileName);
             }
         } catch (IOException e) {
@@ -235,10 +655,29 @@ public class CertificateGenerationService {
         }
     }
 
-    private void captureErrorState(Page page, String outputDir, long regNo) {
+    private void captureErrorState(Page page, long regNo, BatchContext batch) throws InterruptedException {
+        byte[] screenshot;
         try {
-            Path errorShot = Paths.get(outputDir, "ERROR_" + regNo + ".png");
-            page.screenshot(new Page.ScreenshotOptions().setPath(errorShot));
-        } catch (Exception ignored) {}
+            screenshot = page.screenshot();
+        } catch (Exception ignored) {
+            return;
+        }
+        batch.submit(ArchivedArtifact.errorScreenshot(regNo, screenshot));
+    }
+
+    private static class ArchivalWorkerFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger(1);
+        private final String namePrefix;
+
+        ArchivalWorkerFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, namePrefix + sequence.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.beu.result.DocumentArchival.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the merged transcript while the archival job is still running.
+ * <p>
+ * Records arrive out of order (fetch workers finish at different speeds), so each outcome
+ * is buffered until every lower registration number has reported, then appended in order.
+ * All documents use PDFBox's temp-file scratch storage, so page content never sits on the heap.
+ * </p>
+ * <p>
+ * PDFBox reads appended pages lazily from their source files, which therefore stay open until
+ * the destination is saved. Every {@code checkpointEvery} documents the partial merge is saved
+ * and reopened, releasing those handles. Not thread-safe: owned by the archival writer thread.
+ * </p>
+ */
+class IncrementalPdfMerger implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalPdfMerger.class);
+
+    private final Path destination;
+    private final int checkpointEvery;
+    private final PDFMergerUtility merger = new PDFMergerUtility();
+
+    // Outcomes waiting for a lower registration number; null value = nothing to append
+    private final TreeMap<Long, Path> pending = new TreeMap<>();
+    private final List<PDDocument> openSources = new ArrayList<>();
+    private long nextRegNo;
+    private int appendedCount = 0;
+
+    private PDDocument merged;
+    private Path checkpointFile;
+
+    IncrementalPdfMerger(Path destination, long firstRegNo, int checkpointEvery) {
+        this.destination = destination;
+        this.nextRegNo = firstRegNo;
+        this.checkpointEvery = Math.max(1, checkpointEvery);
+        this.merged = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    /**
+     * Reports the outcome of one registration number.
+     *
+     * @param pdfFile the record's rendered PDF, or null when the record produced none
+     */
+    void accept(long regNo, Path pdfFile) throws IOException {
+        pending.put(regNo, pdfFile);
+        while (!pending.isEmpty() && pending.firstKey() == nextRegNo) {
+            Path next = pending.pollFirstEntry().getValue();
+            if (next != null) append(next);
+            nextRegNo++;
+        }
+    }
+
+    /**
+     * Appends whatever is still buffered (records after a gap left by a failed worker)
+     * and writes the merged document. Returns the number of transcripts merged.
+     */
+    int finish() throws IOException {
+        for (Map.Entry<Long, Path> entry : pending.entrySet()) {
+            if (entry.getValue() != null) append(entry.getValue());
+        }
+        pending.clear();
+        if (appendedCount > 0) {
+            merged.save(destination.toFile());
+            LOG.info("Merged Document Created: {} ({} transcripts)", destination.getFileName(), appendedCount);
+        }
+        return appendedCount;
+    }
+
+    private void append(Path pdfFile) throws IOException {
+        PDDocument source = PDDocument.load(pdfFile.toFile(), MemoryUsageSetting.setupTempFileOnly());
+        openSources.add(source);
+        merger.appendDocument(merged, source);
+        appendedCount++;
+        if (openSources.size() >= checkpointEvery) checkpoint();
+    }
+
+    /** Saves the partial merge and reopens it from disk so the source documents can be closed. */
+    private void checkpoint() throws IOException {
+        Path next = Files.createTempFile(destination.getParent(), ".merge-", ".pdf");
+        merged.save(next.toFile());
+        closeDocuments();
+        if (checkpointFile != null) Files.deleteIfExists(checkpointFile);
+        checkpointFile = next;
+        merged = PDDocument.load(checkpointFile.toFile(), MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    private void closeDocuments() throws IOException {
+        merged.close();
+        for (PDDocument source : openSources) source.close();
+        openSources.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeDocuments();
+            if (checkpointFile != null) Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            LOG.warn("Failed to release merge resources: {}", e.getMessage());
+        }
+    }
+}
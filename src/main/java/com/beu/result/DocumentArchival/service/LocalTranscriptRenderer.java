@@ -0,0 +1,88 @@
+package com.beu.result.DocumentArchival.service;
+
+import com.beu.result.AcademicAnalytics.entity.StudentBacklog;
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Renders transcripts from ingested data, without the result portal or a browser.
+ * <p>
+ * The {@code archival/transcript} Thymeleaf template is filled from
+ * {@code StudentInformations}/{@code StudentGrade}/{@code StudentBacklog} and laid out to
+ * PDF by openhtmltopdf on PDFBox. Both are thread-safe, so archival renders records in parallel.
+ * </p>
+ */
+@Service
+public class LocalTranscriptRenderer {
+
+    private static final String TEMPLATE = "archival/transcript";
+
+    /** Bump on any change to the template's layout, so stored transcripts are rendered again. */
+    private static final int TEMPLATE_VERSION = 1;
+
+    private final StudentInfoRepository studentRepository;
+    private final ITemplateEngine templateEngine;
+
+    public LocalTranscriptRenderer(StudentInfoRepository studentRepository, ITemplateEngine templateEngine) {
+        this.studentRepository = studentRepository;
+        this.templateEngine = templateEngine;
+    }
+
+    /** Stored students of the range, with their results loaded. */
+    public List<StudentInformations> loadStored(long startReg, long endReg) {
+        return studentRepository.findWithResultsBetween(startReg, endReg);
+    }
+
+    /** A student can be rendered locally once their grade row has been ingested. */
+    public boolean isRenderable(StudentInformations student) {
+        return student.getGrade() != null;
+    }
+
+    /**
+     * Hash of everything the template reads from the record (plus the template name and version),
+     * so the artifact store can tell whether a stored transcript is still current.
+     */
+    public String sourceHash(StudentInformations student) {
+        StringBuilder source = new StringBuilder("local|").append(TEMPLATE).append('|').append(TEMPLATE_VERSION);
+        source.append('|').append(student.getRegistrationNumber())
+                .append('|').append(student.getStudentName())
+                .append('|').append(student.getFatherName())
+                .append('|').append(student.getMotherName())
+                .append('|').append(student.getCourse())
+                .append('|').append(student.getBranch());
+        StudentGrade grade = student.getGrade();
+        if (grade != null) {
+            for (int sem = 1; sem <= 8; sem++) source.append('|').append(grade.getSem(sem));
+            source.append('|').append(grade.getCgpa());
+            StudentBacklog backlog = grade.getBacklog();
+            if (backlog != null) {
+                for (int sem = 1; sem <= 8; sem++) source.append('|').append(backlog.getSem(sem));
+            }
+        }
+        return ArtifactStore.sha256(source.toString());
+    }
+
+    public byte[] render(StudentInformations student, String sourceName) throws IOException {
+        Context context = new Context();
+        context.setVariable("student", student);
+        context.setVariable("sourceName", sourceName);
+        String html = templateEngine.process(TEMPLATE, context);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        builder.withHtmlContent(html, null);
+        builder.toStream(out);
+        builder.run();
+        return out.toByteArray();
+    }
+}
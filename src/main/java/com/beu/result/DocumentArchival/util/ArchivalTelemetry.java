@@ -1,10 +1,15 @@
 package com.beu.result.DocumentArchival.util;
 
+import com.beu.result.AcademicAnalytics.service.ProgressEventStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Real-time monitoring component for the Document Archival Subsystem.
+ * Finished records are also pushed to the console over {@link #eventStream()}.
  */
 @Component
 public class ArchivalTelemetry {
@@ -13,12 +18,34 @@ public class ArchivalTelemetry {
     private final AtomicInteger totalCount = new AtomicInteger(0);
     private volatile boolean isJobRunning = false;
     private volatile String currentOperation = "System Idle";
+    private volatile long startedAt = System.currentTimeMillis();
+
+    private final ProgressEventStream eventStream;
+
+    public ArchivalTelemetry(@Value("${progress.stream.history-size:500}") int historySize,
+                             @Value("${progress.stream.flush-ms:250}") long flushMillis,
+                             @Value("${progress.stream.heartbeat-ms:15000}") long heartbeatMillis,
+                             @Value("${progress.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.eventStream = new ProgressEventStream("archival", () -> this, historySize,
+                flushMillis, heartbeatMillis, emitterTimeoutMillis);
+    }
+
+    @PostConstruct
+    public void startStream() { eventStream.start(); }
+
+    @PreDestroy
+    public void stopStream() { eventStream.stop(); }
+
+    /** Per-record event feed behind {@code /admin/archives/api/telemetry/stream}. */
+    public ProgressEventStream eventStream() { return eventStream; }
 
     public void initializeJob(int totalItems) {
         this.totalCount.set(totalItems);
         this.processedCount.set(0);
+        this.startedAt = System.currentTimeMillis();
         this.isJobRunning = true;
         this.currentOperation = "Initializing Batch Sequence...";
+        eventStream.markChanged();
     }
 
     /**
@@ -29,11 +56,20 @@ public class ArchivalTelemetry {
         this.processedCount.incrementAndGet();
         // Removed the hardcoded "Archived: " prefix to allow for "Skipped/Failed" messages
         this.currentOperation = statusMessage;
+        eventStream.publish(null, null, statusMessage, null);
+    }
+
+    /** Like {@link #updateStatus}, for one finished record with its outcome and timing (null if untimed). */
+    public void recordProcessed(long regNo, String outcome, Long elapsedMillis, String statusMessage) {
+        this.processedCount.incrementAndGet();
+        this.currentOperation = statusMessage;
+        eventStream.publish(regNo, outcome, statusMessage, elapsedMillis);
     }
 
     public void finalizeJob() {
         this.isJobRunning = false;
         this.currentOperation = "Batch Archival Completed Successfully.";
+        eventStream.markChanged();
     }
 
     // ==========================================
@@ -44,4 +80,9 @@ public class ArchivalTelemetry {
     public int getTotalCount() { return totalCount.get(); }
     public boolean isJobActive() { return isJobRunning; }
     public String getOperationalStatus() { return currentOperation; }
-}
\ No newline at end of file
+
+    /** Estimated seconds left at the run's average rate; null when idle or too early to tell. */
+    public Long getEtaSeconds() {
+        return isJobRunning ? ProgressEventStream.etaSeconds(startedAt, processedCount.get(), totalCount.get()) : null;
+    }
+}
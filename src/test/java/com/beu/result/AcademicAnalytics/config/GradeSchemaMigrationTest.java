@@ -0,0 +1,90 @@
+package com.beu.result.AcademicAnalytics.config;
+
+import com.beu.result.AcademicAnalytics.service.CohortKpiService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class GradeSchemaMigrationTest {
+
+    @TempDir
+    Path dir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTextSchema() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + dir.resolve("grades.db") + "?foreign_keys=true", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE student_informations (registration_number bigint not null, primary key (registration_number))");
+        jdbc.execute("CREATE TABLE student_grades (registration_number bigint not null, cgpa varchar(255), "
+                + "sem1 varchar(255), sem2 varchar(255), sem3 varchar(255), sem4 varchar(255), sem5 varchar(255), "
+                + "sem6 varchar(255), sem7 varchar(255), sem8 varchar(255), primary key (registration_number), "
+                + "foreign key (registration_number) references student_informations (registration_number))");
+        jdbc.execute("CREATE TABLE student_backlogs (registration_number bigint not null, sem1 varchar(255), "
+                + "primary key (registration_number), "
+                + "foreign key (registration_number) references student_grades (registration_number))");
+        jdbc.update("INSERT INTO student_informations VALUES (1), (2)");
+        jdbc.update("INSERT INTO student_grades (registration_number, cgpa, sem1, sem2, sem3, sem4, sem5, sem6, sem7, sem8) "
+                + "VALUES (1, ' 7.45 ', '8', 'NA', '-', '', '1.2.3', '.', '9.', '.5'), (2, NULL, '10', '', '', '', '', '', '', '')");
+        jdbc.update("INSERT INTO student_backlogs VALUES (1, 'CS101')");
+    }
+
+    @AfterEach
+    void close() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void convertsPlainNumbersAndNullsTheRest() {
+        CohortKpiService kpiService = mock(CohortKpiService.class);
+        new GradeSchemaMigration(dataSource, null, kpiService).migrate();
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM student_grades WHERE registration_number = 1");
+        assertThat(row.get("cgpa")).isEqualTo(7.45);
+        assertThat(row.get("sem1")).isEqualTo(8.0);
+        assertThat(row.get("sem7")).isEqualTo(9.0);
+        assertThat(row.get("sem8")).isEqualTo(0.5);
+        assertThat(row).containsEntry("sem2", null).containsEntry("sem3", null).containsEntry("sem4", null)
+                .containsEntry("sem5", null).containsEntry("sem6", null);
+        assertThat(jdbc.queryForObject("SELECT typeof(sem1) FROM student_grades WHERE registration_number = 2", String.class))
+                .isEqualTo("real");
+        verify(kpiService).rebuild();
+    }
+
+    @Test
+    void keepsForeignKeysOnBothSidesOfTheRebuiltTable() {
+        new GradeSchemaMigration(dataSource, null, mock(CohortKpiService.class)).migrate();
+
+        assertThat(jdbc.queryForObject(
+                "SELECT \"table\" FROM pragma_foreign_key_list('student_grades')", String.class))
+                .isEqualTo("student_informations");
+        assertThat(jdbc.queryForObject(
+                "SELECT \"table\" FROM pragma_foreign_key_list('student_backlogs')", String.class))
+                .isEqualTo("student_grades");
+        assertThat(jdbc.queryForList("PRAGMA foreign_key_check")).isEmpty();
+        assertThat(jdbc.queryForObject("PRAGMA foreign_keys", Integer.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM student_backlogs", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void leavesNumericColumnsAlone() {
+        new GradeSchemaMigration(dataSource, null, mock(CohortKpiService.class)).migrate();
+        CohortKpiService kpiService = mock(CohortKpiService.class);
+        new GradeSchemaMigration(dataSource, null, kpiService).migrate();
+
+        verify(kpiService, never()).rebuild();
+    }
+}
@@ -0,0 +1,110 @@
+package com.beu.result.AcademicAnalytics.repository;
+
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"browser.pool.prewarm-count=0", "ingestion.resume-on-startup=false"})
+class StudentRegistryQueriesImplTest {
+
+    @DynamicPropertySource
+    static void scratchDatabase(DynamicPropertyRegistry registry) throws IOException {
+        Path db = Files.createTempDirectory("registry-test").resolve("registry.db");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+    }
+
+    @Autowired
+    private StudentInfoRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM student_grades");
+        jdbc.update("DELETE FROM student_informations");
+        // Two CGPA ties, students without a CGPA, one without a grade row, and one from another college
+        Object[][] students = {
+                {22105111001L, "ANU_RAJ", 8.0}, {22105111002L, "ANUXRAJ", 9.5}, {22105111003L, "RAM 100%", 8.0},
+                {22105111004L, "RAM 1000", null}, {22105111005L, "SITA", 7.2}, {22105111006L, "A\\B", 8.0},
+                {22105111007L, "AXB", "no grade row"}, {22105112001L, "GITA", 9.9}, {22105111008L, "RAVI", null},
+                {22105111009L, "MOHAN", 7.2}};
+        for (Object[] student : students) {
+            long regNo = (Long) student[0];
+            jdbc.update("INSERT INTO student_informations (registration_number, student_name, batch_year, branch_code, college_code) "
+                    + "VALUES (?, ?, ?, ?, ?)", regNo, student[1], 22, 105, (int) (regNo / 1000 % 1000));
+            if (!(student[2] instanceof String)) {
+                jdbc.update("INSERT INTO student_grades (registration_number, cgpa) VALUES (?, ?)", regNo, student[2]);
+            }
+        }
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertThat(StudentRegistryQueriesImpl.escapeLike("a_b%c\\d")).isEqualTo("a\\_b\\%c\\\\d");
+    }
+
+    @Test
+    void nameSearchTreatsWildcardsLiterally() {
+        assertThat(searchByName("_")).containsExactly(22105111001L);
+        assertThat(searchByName("0%")).containsExactly(22105111003L);
+        assertThat(searchByName("\\")).containsExactly(22105111006L);
+        assertThat(searchByName("nu")).containsExactly(22105111001L, 22105111002L);
+    }
+
+    @Test
+    void walksRegistrationOrderAcrossChunks() {
+        assertThat(stream(new StudentFilter(22, 105, 111, null), false, 3)).containsExactly(
+                22105111001L, 22105111002L, 22105111003L, 22105111004L, 22105111005L,
+                22105111006L, 22105111007L, 22105111008L, 22105111009L);
+    }
+
+    @Test
+    void walksRankedOrderAcrossTiesAndIntoStudentsWithoutCgpa() {
+        // Chunks of 2 end inside the 8.0 and 7.2 ties, so the cursor must resume on the registration number
+        assertThat(stream(new StudentFilter(22, 105, 111, null), true, 2)).containsExactly(
+                22105111002L, 22105111001L, 22105111003L, 22105111006L, 22105111005L, 22105111009L,
+                22105111004L, 22105111007L, 22105111008L);
+    }
+
+    @Test
+    void matchesTheUnpagedRegistryQuery() {
+        StudentFilter all = new StudentFilter(null, null, null, null);
+        for (boolean ranked : new boolean[]{false, true}) {
+            List<Long> page = repository.findRegistryPage(all, ranked, Pageable.unpaged(), null)
+                    .map(StudentInformations::getRegistrationNumber).getContent();
+            assertThat(stream(all, ranked, 4)).isEqualTo(page);
+        }
+    }
+
+    @Test
+    void chunkSizeOfTheWholeResultStillTerminates() {
+        assertThat(stream(new StudentFilter(null, null, null, null), true, 10)).hasSize(10);
+        assertThat(stream(new StudentFilter(null, null, null, null), false, 10)).hasSize(10);
+    }
+
+    private List<Long> stream(StudentFilter filter, boolean ranked, int chunkSize) {
+        try (Stream<RegistryRow> rows = repository.streamRegistry(filter, ranked, chunkSize)) {
+            return rows.map(RegistryRow::registrationNumber).toList();
+        }
+    }
+
+    private List<Long> searchByName(String name) {
+        return repository.findRegistryPage(StudentFilter.of(null, null, null, name), false, Pageable.unpaged(), null)
+                .map(StudentInformations::getRegistrationNumber).getContent();
+    }
+}
@@ -0,0 +1,79 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.entity.IngestionJob;
+import com.beu.result.AcademicAnalytics.entity.StudentSyncState;
+import com.beu.result.AcademicAnalytics.repository.StudentSyncStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"browser.pool.prewarm-count=0", "ingestion.resume-on-startup=false",
+        "ingestion.incremental.recheck-after-hours=24"})
+class IngestionCheckpointServiceTest {
+
+    private static final String LINK = "http://results.test/r.aspx?RegNo={REG}";
+
+    @DynamicPropertySource
+    static void scratchDatabase(DynamicPropertyRegistry registry) throws IOException {
+        Path db = Files.createTempDirectory("checkpoint-test").resolve("checkpoint.db");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+    }
+
+    @Autowired
+    private IngestionCheckpointService checkpointService;
+
+    @Autowired
+    private StudentSyncStateRepository syncStateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        syncStateRepository.deleteAll();
+        jdbc.update("DELETE FROM student_grades");
+        LocalDateTime now = LocalDateTime.now();
+        // 1: fresh READY, 2: READY synced before the window, 3: fresh NO_RECORD, 4: stale NO_RECORD,
+        // 5: fresh READY whose grade row is gone, 6: fresh READY on another link
+        sync(LINK, 1, "READY", "h1", now.minusHours(1));
+        sync(LINK, 2, "READY", "h2", now.minusDays(3));
+        sync(LINK, 3, "NO_RECORD", null, now.minusHours(1));
+        sync(LINK, 4, "NO_RECORD", null, now.minusDays(3));
+        sync(LINK, 5, "READY", "h5", now.minusHours(1));
+        sync("http://other.test/r.aspx?RegNo={REG}", 6, "READY", "h6", now.minusHours(1));
+        for (long regNo : new long[]{1, 2, 6}) {
+            jdbc.update("INSERT INTO student_grades (registration_number) VALUES (?)", regNo);
+        }
+    }
+
+    @Test
+    void skipsOnlyRecordsSyncedWithinTheRecheckWindow() {
+        IngestionJob job = new IngestionJob(LINK, 1L, 6L, true, false);
+        assertThat(checkpointService.alreadySyncedRegistrations(job)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void recheckingNoRecordStillSkipsFreshReadyRecords() {
+        IngestionJob job = new IngestionJob(LINK, 1L, 6L, true, true);
+        assertThat(checkpointService.alreadySyncedRegistrations(job)).containsExactly(1L);
+    }
+
+    private void sync(String link, long regNo, String outcome, String hash, LocalDateTime syncedAt) {
+        StudentSyncState state = new StudentSyncState(link, regNo);
+        state.setOutcome(outcome);
+        state.setContentHash(hash);
+        state.setSyncedAt(syncedAt);
+        syncStateRepository.save(state);
+    }
+}
@@ -0,0 +1,85 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.repository.FacetCell;
+import com.beu.result.AcademicAnalytics.repository.StudentFilter;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.beu.result.AcademicAnalytics.service.StudentFacetService.FacetOption;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudentFacetServiceTest {
+
+    private final StudentInfoRepository repository = mock(StudentInfoRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StudentFacetService facets;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.countFacetCells()).thenReturn(List.of(
+                new FacetCell(22, 105, 111, "Computer Science", 40),
+                new FacetCell(22, 105, 112, "Computer Science", 10),
+                new FacetCell(22, 101, 111, "Civil", 30),
+                new FacetCell(23, 105, 111, "Computer Science", 25),
+                new FacetCell(23, 102, 111, "Civil", 5)));
+        facets = new StudentFacetService(repository, meterRegistry);
+    }
+
+    @Test
+    void countsEveryFacetAcrossAllStudents() {
+        StudentFilter all = new StudentFilter(null, null, null, null);
+
+        assertThat(facets.batchYears(all)).containsExactly(
+                new FacetOption(23, "Batch 2023", 30), new FacetOption(22, "Batch 2022", 80));
+        assertThat(facets.colleges(all)).containsExactly(
+                new FacetOption(111, "111", 100), new FacetOption(112, "112", 10));
+        assertThat(facets.count(all)).hasValue(110);
+    }
+
+    @Test
+    void countsEachFacetUnderTheOtherFilters() {
+        StudentFilter filter = new StudentFilter(22, 105, null, null);
+
+        // Branches ignore the selected branch, years ignore the selected year
+        assertThat(facets.branches(filter)).extracting(FacetOption::value, FacetOption::count)
+                .containsExactly(tuple(101, 30L), tuple(102, 0L),
+                        tuple(105, 50L));
+        assertThat(facets.batchYears(filter)).extracting(FacetOption::count).containsExactly(25L, 50L);
+        assertThat(facets.colleges(filter)).extracting(FacetOption::count).containsExactly(40L, 10L);
+        assertThat(facets.count(filter)).hasValue(50);
+    }
+
+    @Test
+    void branchNamesSharedByTwoCodesCarryTheCode() {
+        assertThat(facets.branches(new StudentFilter(null, null, null, null))).extracting(FacetOption::name)
+                .containsExactly("Civil [101]", "Civil [102]", "Computer Science");
+    }
+
+    @Test
+    void nameSearchesAreLeftToTheDatabase() {
+        assertThat(facets.count(new StudentFilter(null, null, null, "ravi"))).isEmpty();
+    }
+
+    @Test
+    void servesFromCacheUntilInvalidated() {
+        StudentFilter all = new StudentFilter(null, null, null, null);
+        facets.count(all);
+        facets.count(all);
+        verify(repository, times(1)).countFacetCells();
+
+        facets.invalidate();
+        facets.count(all);
+        verify(repository, times(2)).countFacetCells();
+        assertThat(meterRegistry.get("registry.facets.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("registry.facets.cache").tag("result", "miss").counter().count()).isEqualTo(2);
+    }
+}
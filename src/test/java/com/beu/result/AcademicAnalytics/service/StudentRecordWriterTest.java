@@ -0,0 +1,38 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.service.StudentRecordWriter.JobCheckpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentRecordWriterTest {
+
+    @Test
+    void watermarkAdvancesOnlyOverContiguousCompletions() {
+        JobCheckpoint checkpoint = new JobCheckpoint(100, List.of());
+
+        assertThat(checkpoint.complete(List.of(103L, 102L))).isEqualTo(100);
+        assertThat(checkpoint.complete(List.of(101L))).isEqualTo(103);
+        assertThat(checkpoint.complete(List.of(105L))).isEqualTo(103);
+    }
+
+    @Test
+    void previewDoesNotRecordTheBatch() {
+        JobCheckpoint checkpoint = new JobCheckpoint(100, List.of(102L));
+
+        assertThat(checkpoint.preview(List.of(101L))).isEqualTo(102);
+        // The batch rolled back: nothing was completed
+        assertThat(checkpoint.preview(List.of())).isEqualTo(100);
+        assertThat(checkpoint.complete(List.of(101L))).isEqualTo(102);
+    }
+
+    @Test
+    void resumedCheckpointCountsRecordsAlreadyDone() {
+        JobCheckpoint checkpoint = new JobCheckpoint(100, List.of(101L, 99L, 104L));
+
+        assertThat(checkpoint.preview(List.of())).isEqualTo(101);
+        assertThat(checkpoint.complete(List.of(102L, 103L))).isEqualTo(104);
+    }
+}
@@ -0,0 +1,34 @@
+package com.beu.result.AcademicAnalytics.service;
+
+import com.beu.result.AcademicAnalytics.service.TranscriptGenerationService.WorkUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TranscriptGenerationServiceTest {
+
+    @Test
+    void cutsTheRangeIntoUnitsOfAtMostTheUnitSize() {
+        assertThat(TranscriptGenerationService.partitionRange(1, 10, Set.of(), 4))
+                .containsExactly(new WorkUnit(1, 4), new WorkUnit(5, 8), new WorkUnit(9, 10));
+    }
+
+    @Test
+    void completedRegistrationsSplitUnits() {
+        assertThat(TranscriptGenerationService.partitionRange(1, 10, Set.of(3L, 4L, 9L), 5))
+                .containsExactly(new WorkUnit(1, 2), new WorkUnit(5, 8), new WorkUnit(10, 10));
+    }
+
+    @Test
+    void aFullyCompletedRangeQueuesNothing() {
+        assertThat(TranscriptGenerationService.partitionRange(5, 7, Set.of(5L, 6L, 7L), 2)).isEmpty();
+    }
+
+    @Test
+    void aUnitSizeBelowOneMeansSingleRecords() {
+        assertThat(TranscriptGenerationService.partitionRange(1, 3, Set.of(), 0))
+                .containsExactly(new WorkUnit(1, 1), new WorkUnit(2, 2), new WorkUnit(3, 3));
+    }
+}
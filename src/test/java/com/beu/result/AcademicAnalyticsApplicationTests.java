@@ -2,10 +2,22 @@ package com.beu.result;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-@SpringBootTest
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@SpringBootTest(properties = {"browser.pool.prewarm-count=0", "ingestion.resume-on-startup=false"})
 class AcademicAnalyticsApplicationTests {
 
+	@DynamicPropertySource
+	static void scratchDatabase(DynamicPropertyRegistry registry) throws IOException {
+		Path db = Files.createTempDirectory("context-test").resolve("academic_data.db");
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+	}
+
 	@Test
 	void contextLoads() {
 	}
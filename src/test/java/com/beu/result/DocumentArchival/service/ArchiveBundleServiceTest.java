@@ -0,0 +1,50 @@
+package com.beu.result.DocumentArchival.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveBundleServiceTest {
+
+    @Test
+    void parsesBoundedOpenAndSuffixRanges() {
+        assertThat(ArchiveBundleService.parseRange("bytes=0-99", 1000)).containsExactly(0, 99);
+        assertThat(ArchiveBundleService.parseRange("bytes=900-", 1000)).containsExactly(900, 999);
+        assertThat(ArchiveBundleService.parseRange("bytes=-100", 1000)).containsExactly(900, 999);
+    }
+
+    @Test
+    void clampsRangesToTheBundle() {
+        assertThat(ArchiveBundleService.parseRange("bytes=500-5000", 1000)).containsExactly(500, 999);
+        assertThat(ArchiveBundleService.parseRange("bytes=-5000", 1000)).containsExactly(0, 999);
+    }
+
+    @Test
+    void servesTheFirstOfSeveralRanges() {
+        assertThat(ArchiveBundleService.parseRange("bytes=10-19, 50-59", 1000)).containsExactly(10, 19);
+    }
+
+    @Test
+    void skipsUnsatisfiableRangesInAList() {
+        assertThat(ArchiveBundleService.parseRange("bytes=5000-6000, 10-19", 1000)).containsExactly(10, 19);
+    }
+
+    @Test
+    void flagsValidRangesOutsideTheBundleAsUnsatisfiable() {
+        assertThat(ArchiveBundleService.parseRange("bytes=1000-", 1000)).isSameAs(ArchiveBundleService.UNSATISFIABLE);
+        assertThat(ArchiveBundleService.parseRange("bytes=-0", 1000)).isSameAs(ArchiveBundleService.UNSATISFIABLE);
+        assertThat(ArchiveBundleService.parseRange("bytes=0-5", 0)).isSameAs(ArchiveBundleService.UNSATISFIABLE);
+        assertThat(ArchiveBundleService.parseRange("bytes=2000-3000, 1500-", 1000)).isSameAs(ArchiveBundleService.UNSATISFIABLE);
+    }
+
+    @Test
+    void ignoresMalformedRanges() {
+        assertThat(ArchiveBundleService.parseRange("bytes=20-10", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("bytes=abc-", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("bytes=5", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("bytes=-", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("bytes=", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("bytes=0-5, 9-2", 1000)).isNull();
+        assertThat(ArchiveBundleService.parseRange("items=0-5", 1000)).isNull();
+    }
+}
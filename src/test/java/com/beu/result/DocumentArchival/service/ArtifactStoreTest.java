@@ -0,0 +1,115 @@
+package com.beu.result.DocumentArchival.service;
+
+import com.beu.result.AcademicAnalytics.entity.StudentGrade;
+import com.beu.result.AcademicAnalytics.entity.StudentInformations;
+import com.beu.result.AcademicAnalytics.repository.StudentInfoRepository;
+import com.beu.result.DocumentArchival.entity.ArchiveManifestEntry;
+import com.beu.result.DocumentArchival.repository.ArchiveManifestRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArtifactStoreTest {
+
+    @TempDir
+    Path storageRoot;
+
+    private final ArchiveManifestRepository manifestRepository = mock(ArchiveManifestRepository.class);
+    private final ArtifactStore store = new ArtifactStore(manifestRepository);
+
+    @Test
+    void renderingTheSameRecordTwiceKeepsOneBlob() throws Exception {
+        LocalTranscriptRenderer renderer = new LocalTranscriptRenderer(mock(StudentInfoRepository.class), templateEngine());
+        StudentInformations student = student();
+        String sourceHash = renderer.sourceHash(student);
+
+        Path first = Files.createDirectories(storageRoot.resolve("run1")).resolve("22105111001.pdf");
+        Path second = Files.createDirectories(storageRoot.resolve("run2")).resolve("22105111001.pdf");
+        ArchiveManifestEntry firstEntry = store.publish(storageRoot, first, "link", 22105111001L, sourceHash,
+                renderer.render(student, "test"));
+        ArchiveManifestEntry secondEntry = store.publish(storageRoot, second, "link", 22105111001L, sourceHash,
+                renderer.render(student, "test"));
+
+        assertThat(blobs()).hasSize(1);
+        assertThat(Files.mismatch(first, second)).isEqualTo(-1L);
+        assertThat(secondEntry.getContentHash()).isEqualTo(firstEntry.getContentHash())
+                .isEqualTo(ArtifactStore.sha256(Files.readAllBytes(second)));
+    }
+
+    @Test
+    void changedSourceDataGetsItsOwnBlob() throws Exception {
+        Path target = Files.createDirectories(storageRoot.resolve("run")).resolve("1.pdf");
+        store.publish(storageRoot, target, "link", 1L, ArtifactStore.sha256("v1"), new byte[]{1});
+        store.publish(storageRoot, target, "link", 1L, ArtifactStore.sha256("v2"), new byte[]{2});
+
+        assertThat(blobs()).hasSize(2);
+        assertThat(Files.readAllBytes(target)).containsExactly(2);
+    }
+
+    @Test
+    void reusedBlobTakesTheRecordedContentHash() throws Exception {
+        String sourceHash = ArtifactStore.sha256("v1");
+        Path first = Files.createDirectories(storageRoot.resolve("run1")).resolve("1.pdf");
+        ArchiveManifestEntry published = store.publish(storageRoot, first, "link", 1L, sourceHash, new byte[]{1, 2, 3});
+        when(manifestRepository.findFirstBySourceHash(sourceHash)).thenReturn(Optional.of(published));
+
+        Path second = Files.createDirectories(storageRoot.resolve("run2")).resolve("1.pdf");
+        ArchiveManifestEntry reused = store.publish(storageRoot, second, "link", 1L, sourceHash, new byte[]{9});
+
+        assertThat(reused.getContentHash()).isEqualTo(published.getContentHash());
+        assertThat(reused.getSizeBytes()).isEqualTo(3L);
+        assertThat(Files.readAllBytes(second)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void sweepDeletesBlobsNoBatchFolderLinksTo() throws Exception {
+        Path target = Files.createDirectories(storageRoot.resolve("run")).resolve("1.pdf");
+        store.publish(storageRoot, target, "link", 1L, ArtifactStore.sha256("v1"), new byte[]{1});
+        store.publish(storageRoot, target, "link", 1L, ArtifactStore.sha256("v2"), new byte[]{2});
+        Files.write(blobs().get(0).resolveSibling(".blob-crashed.pdf"), new byte[]{3});
+
+        assertThat(store.sweep(storageRoot)).isEqualTo(2);
+        assertThat(blobs()).hasSize(1);
+        assertThat(Files.readAllBytes(blobs().get(0))).containsExactly(2);
+        assertThat(Files.readAllBytes(target)).containsExactly(2);
+    }
+
+    private List<Path> blobs() throws Exception {
+        try (Stream<Path> files = Files.walk(storageRoot.resolve(ArtifactStore.STORE_DIR))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static StudentInformations student() {
+        StudentInformations student = new StudentInformations();
+        student.setRegistrationNumber(22105111001L);
+        student.setStudentName("TEST STUDENT");
+        student.setCourse("B.Tech");
+        student.setBranch("Civil Engineering");
+        StudentGrade grade = new StudentGrade();
+        grade.setSem1(8.1);
+        grade.setCgpa(8.1);
+        student.setGrade(grade);
+        return student;
+    }
+
+    private static SpringTemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
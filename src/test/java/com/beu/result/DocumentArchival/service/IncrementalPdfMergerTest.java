@@ -0,0 +1,84 @@
+package com.beu.result.DocumentArchival.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalPdfMergerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsOutOfOrderRecordsInRegistrationOrder() throws IOException {
+        Path merged = dir.resolve("merged.pdf");
+        try (IncrementalPdfMerger merger = new IncrementalPdfMerger(merged, 1, 100)) {
+            merger.accept(3, transcript(3));
+            merger.accept(1, transcript(1));
+            merger.accept(2, null); // no transcript for 2
+            merger.accept(5, transcript(5));
+            merger.accept(4, transcript(4));
+            assertThat(merger.finish()).isEqualTo(4);
+        }
+        assertThat(pageWidths(merged)).containsExactly(101f, 103f, 104f, 105f);
+    }
+
+    @Test
+    void recordsAfterAGapAreAppendedOnFinish() throws IOException {
+        Path merged = dir.resolve("merged.pdf");
+        try (IncrementalPdfMerger merger = new IncrementalPdfMerger(merged, 1, 100)) {
+            merger.accept(1, transcript(1));
+            merger.accept(4, transcript(4));
+            merger.accept(3, transcript(3)); // 2 never reports
+            assertThat(merger.finish()).isEqualTo(3);
+        }
+        assertThat(pageWidths(merged)).containsExactly(101f, 103f, 104f);
+    }
+
+    @Test
+    void checkpointsReopenThePartialMergeWithoutLosingPages() throws IOException {
+        Path merged = dir.resolve("merged.pdf");
+        try (IncrementalPdfMerger merger = new IncrementalPdfMerger(merged, 1, 2)) {
+            for (long regNo = 7; regNo >= 1; regNo--) merger.accept(regNo, transcript(regNo));
+            assertThat(checkpointFiles()).hasSize(1);
+            assertThat(merger.finish()).isEqualTo(7);
+        }
+        assertThat(pageWidths(merged)).containsExactly(101f, 102f, 103f, 104f, 105f, 106f, 107f);
+        assertThat(checkpointFiles()).isEmpty();
+    }
+
+    /** One-page PDF whose page width identifies the record. */
+    private Path transcript(long regNo) throws IOException {
+        Path file = dir.resolve(regNo + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(new PDRectangle(100 + regNo, 200)));
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    private static List<Float> pageWidths(Path pdf) throws IOException {
+        List<Float> widths = new ArrayList<>();
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            for (PDPage page : document.getPages()) widths.add(page.getMediaBox().getWidth());
+        }
+        return widths;
+    }
+
+    private List<Path> checkpointFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(".merge-")).toList();
+        }
+    }
+}